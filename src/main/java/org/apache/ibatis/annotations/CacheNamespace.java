@@ -52,6 +52,9 @@ public @interface CacheNamespace {
 
   /**
    * Returns the cache implementation type to use.
+   * <p>
+   * {@link org.apache.ibatis.cache.impl.ConcurrentCache} can be specified for namespaces that are read by many threads.
+   * It has its own eviction policy, so {@link #eviction()} is ignored for it.
    *
    * @return the cache implementation type
    */
@@ -92,6 +95,15 @@ public @interface CacheNamespace {
    */
   boolean blocking() default false;
 
+  /**
+   * Returns whether concurrent cache misses for the same key share a single query or not. Takes precedence over
+   * {@link #blocking()}.
+   *
+   * @return {@code true} if concurrent misses share a single query; {@code false} if otherwise
+   * @since 3.5.10
+   */
+  boolean singleFlight() default false;
+
   /**
    * Returns property values for a implementation object.
    *
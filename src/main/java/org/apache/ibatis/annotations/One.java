@@ -63,4 +63,21 @@ public @interface One {
    */
   FetchType fetchType() default FetchType.DEFAULT;
 
+  /**
+   * Returns the number of rows whose nested statement is run at once, with the list of their keys as parameter.
+   *
+   * @return the batch size. A value of 0 or less runs the nested statement once per row
+   * @since 3.5.10
+   */
+  int batchSize() default -1;
+
+  /**
+   * Returns the columns of the nested statement's result that hold the key of the row the association belongs to, when the
+   * nested statement is run for several rows at once. Defaults to the column of the {@link Result}.
+   *
+   * @return the foreign columns
+   * @since 3.5.10
+   */
+  String foreignColumn() default "";
+
 }
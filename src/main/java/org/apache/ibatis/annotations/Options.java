@@ -138,6 +138,35 @@ public @interface Options {
    */
   String resultSets() default "";
 
+  /**
+   * Returns the tags of the second level cache entries the statement reads or invalidates.
+   * <p>
+   * If you specify multiple tags, please separate using comma(','). Each tag is a {@code name=property} pair, or a
+   * single property name.
+   * </p>
+   *
+   * @return cache tags that separate with comma(',')
+   * @since 3.5.10
+   */
+  String cacheTags() default "";
+
+  /**
+   * Returns the number of rows after which the batch executor flushes the batch of this statement.
+   *
+   * @return the batch size. {@code -1} means to use the default batch size of the configuration
+   * @since 3.5.10
+   */
+  int batchSize() default -1;
+
+  /**
+   * Returns the estimated size of the parameters, in bytes, after which the batch executor flushes the batch of this
+   * statement.
+   *
+   * @return the batch byte size. {@code -1} means to use the default batch byte size of the configuration
+   * @since 3.5.10
+   */
+  int batchByteSize() default -1;
+
   /**
    * @return A database id that correspond this options
    * @since 3.5.5
@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -187,10 +188,21 @@ public class MapperAnnotationBuilder {
       Integer size = cacheDomain.size() == 0 ? null : cacheDomain.size();
       Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
       Properties props = convertToProperties(cacheDomain.properties());
-      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
+      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(),
+          cacheDomain.singleFlight(), hasCacheTags(), props);
     }
   }
 
+  private boolean hasCacheTags() {
+    for (Method method : type.getMethods()) {
+      Options options = method.getAnnotation(Options.class);
+      if (canHaveStatement(method) && options != null && !options.cacheTags().trim().isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private Properties convertToProperties(Property[] properties) {
     if (properties.length == 0) {
       return null;
@@ -325,6 +337,8 @@ public class MapperAnnotationBuilder {
 
       Integer fetchSize = null;
       Integer timeout = null;
+      Integer batchSize = null;
+      Integer batchByteSize = null;
       StatementType statementType = StatementType.PREPARED;
       ResultSetType resultSetType = configuration.getDefaultResultSetType();
       boolean isSelect = sqlCommandType == SqlCommandType.SELECT;
@@ -339,6 +353,8 @@ public class MapperAnnotationBuilder {
         useCache = options.useCache();
         fetchSize = options.fetchSize() > -1 || options.fetchSize() == Integer.MIN_VALUE ? options.fetchSize() : null; //issue #348
         timeout = options.timeout() > -1 ? options.timeout() : null;
+        batchSize = options.batchSize() > -1 ? options.batchSize() : null;
+        batchByteSize = options.batchByteSize() > -1 ? options.batchByteSize() : null;
         statementType = options.statementType();
         if (options.resultSetType() != ResultSetType.DEFAULT) {
           resultSetType = options.resultSetType();
@@ -378,7 +394,11 @@ public class MapperAnnotationBuilder {
           statementAnnotation.getDatabaseId(),
           languageDriver,
           // ResultSets
-          options != null ? nullOrEmpty(options.resultSets()) : null);
+          options != null ? nullOrEmpty(options.resultSets()) : null,
+          options != null ? nullOrEmpty(options.cacheTags()) : null,
+          batchSize,
+          batchByteSize,
+          false);
     });
   }
 
@@ -408,8 +428,11 @@ public class MapperAnnotationBuilder {
   }
 
   private Class<?> getReturnType(Method method) {
+    return getReturnType(method, TypeParameterResolver.resolveReturnType(method, type));
+  }
+
+  private Class<?> getReturnType(Method method, Type resolvedReturnType) {
     Class<?> returnType = method.getReturnType();
-    Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
     if (resolvedReturnType instanceof Class) {
       returnType = (Class<?>) resolvedReturnType;
       if (returnType.isArray()) {
@@ -458,6 +481,9 @@ public class MapperAnnotationBuilder {
         if (returnTypeParameter instanceof Class<?>) {
           returnType = (Class<?>) returnTypeParameter;
         }
+      } else if (CompletableFuture.class.equals(rawType)) {
+        // the type of the result the future is completed with
+        returnType = getReturnType(method, parameterizedType.getActualTypeArguments()[0]);
       }
     }
 
@@ -487,8 +513,9 @@ public class MapperAnnotationBuilder {
           typeHandler,
           flags,
           null,
-          null,
-          isLazy(result));
+          hasNestedSelect(result) ? nullOrEmpty(foreignColumn(result)) : null,
+          isLazy(result),
+          hasNestedSelect(result) ? batchSize(result) : null);
       resultMappings.add(resultMapping);
     }
   }
@@ -530,6 +557,19 @@ public class MapperAnnotationBuilder {
     return nestedSelect;
   }
 
+  private String foreignColumn(Result result) {
+    String foreignColumn = result.one().foreignColumn();
+    if (foreignColumn.length() < 1) {
+      foreignColumn = result.many().foreignColumn();
+    }
+    return foreignColumn;
+  }
+
+  private Integer batchSize(Result result) {
+    int batchSize = result.one().select().length() > 0 ? result.one().batchSize() : result.many().batchSize();
+    return batchSize > 0 ? batchSize : null;
+  }
+
   private boolean isLazy(Result result) {
     boolean isLazy = configuration.isLazyLoadingEnabled();
     if (result.one().select().length() > 0 && FetchType.DEFAULT != result.one().fetchType()) {
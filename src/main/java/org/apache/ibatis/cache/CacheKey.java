@@ -15,8 +15,13 @@
  */
 package org.apache.ibatis.cache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
 
@@ -29,6 +34,16 @@ public class CacheKey implements Cloneable, Serializable {
 
   private static final long serialVersionUID = 1146682552656046210L;
 
+  // the serialized form has kept the fields of the list based implementation, so that keys stored by external caches
+  // can still be read. Its checksum is the former additive one, and the checksum and hashcode are computed again from
+  // the update list when a key is read
+  private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("multiplier", int.class),
+      new ObjectStreamField("hashcode", int.class),
+      new ObjectStreamField("checksum", long.class),
+      new ObjectStreamField("count", int.class),
+      new ObjectStreamField("updateList", List.class) };
+
   public static final CacheKey NULL_CACHE_KEY = new CacheKey() {
 
     @Override
@@ -44,41 +59,66 @@ public class CacheKey implements Cloneable, Serializable {
 
   private static final int DEFAULT_MULTIPLIER = 37;
   private static final int DEFAULT_HASHCODE = 17;
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final long CHECKSUM_MULTIPLIER = 0x9E3779B97F4A7C15L;
 
-  private final int multiplier;
+  private int multiplier;
   private int hashcode;
   private long checksum;
   private int count;
   // 8/21/2017 - Sonarlint flags this as needing to be marked transient. While true if content is not serializable, this
   // is not always true and thus should not be marked transient.
-  private List<Object> updateList;
+  private Object[] updateList;
 
   public CacheKey() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty key that can hold the given number of objects before it needs to grow.
+   *
+   * @param initialCapacity
+   *          the expected number of updates
+   * @since 3.5.10
+   */
+  public CacheKey(int initialCapacity) {
     this.hashcode = DEFAULT_HASHCODE;
     this.multiplier = DEFAULT_MULTIPLIER;
     this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.updateList = new Object[Math.max(initialCapacity, 1)];
   }
 
   public CacheKey(Object[] objects) {
-    this();
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
-    int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
+    int baseHashCode = baseHashCode(object);
+
+    if (count == updateList.length) {
+      updateList = Arrays.copyOf(updateList, count << 1);
+    }
+    updateList[count] = object;
 
     count++;
-    checksum += baseHashCode;
+    hash(baseHashCode);
+  }
+
+  private void hash(int baseHashCode) {
+    // order sensitive 64 bit checksum, so that keys sharing a hashcode rarely need to be compared object by object
+    checksum = checksum * CHECKSUM_MULTIPLIER + baseHashCode;
     baseHashCode *= count;
 
     hashcode = multiplier * hashcode + baseHashCode;
+  }
 
-    updateList.add(object);
+  private static int baseHashCode(Object object) {
+    return object == null ? 1 : ArrayUtil.hashCode(object);
   }
 
   public void updateAll(Object[] objects) {
@@ -108,9 +148,9 @@ public class CacheKey implements Cloneable, Serializable {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
+    for (int i = 0; i < count; i++) {
+      Object thisObject = updateList[i];
+      Object thatObject = cacheKey.updateList[i];
       if (!ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
@@ -120,7 +160,8 @@ public class CacheKey implements Cloneable, Serializable {
 
   @Override
   public int hashCode() {
-    return hashcode;
+    // folds the 64 bit checksum, whose high bits are better mixed than the 32 bit hashcode
+    return Long.hashCode(checksum);
   }
 
   @Override
@@ -128,14 +169,45 @@ public class CacheKey implements Cloneable, Serializable {
     StringJoiner returnValue = new StringJoiner(":");
     returnValue.add(String.valueOf(hashcode));
     returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    Arrays.stream(updateList, 0, count).map(ArrayUtil::toString).forEach(returnValue::add);
     return returnValue.toString();
   }
 
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("multiplier", multiplier);
+    fields.put("hashcode", hashcode);
+    long additiveChecksum = 0;
+    for (int i = 0; i < count; i++) {
+      additiveChecksum += baseHashCode(updateList[i]);
+    }
+    fields.put("checksum", additiveChecksum);
+    fields.put("count", count);
+    fields.put("updateList", new ArrayList<>(Arrays.asList(updateList).subList(0, count)));
+    out.writeFields();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField fields = in.readFields();
+    multiplier = fields.get("multiplier", DEFAULT_MULTIPLIER);
+    List<?> list = (List<?>) fields.get("updateList", null);
+    updateList = list == null ? new Object[1] : list.toArray(new Object[Math.max(list.size(), 1)]);
+    // the stored checksum may come from another version, so both are computed as update() does
+    hashcode = DEFAULT_HASHCODE;
+    checksum = 0;
+    count = 0;
+    int size = list == null ? 0 : list.size();
+    while (count < size) {
+      Object object = updateList[count];
+      count++;
+      hash(baseHashCode(object));
+    }
+  }
+
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    clonedCacheKey.updateList = updateList.clone();
     return clonedCacheKey;
   }
 
@@ -0,0 +1,189 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a second level cache, updated by the cache and its decorators.
+ * <p>
+ * Counters never take a lock, so they can be read at any time while the cache is in use. Values read while the cache
+ * is being updated may be slightly out of date.
+ *
+ * @since 3.5.10
+ * @see CacheMetricsRegistry
+ */
+public class CacheMetrics {
+
+  private final String id;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder blockingWaits = new LongAdder();
+  private final LongAdder blockingWaitTime = new LongAdder();
+  private final LongAdder scheduledClears = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+  private final LongAdder serializationTime = new LongAdder();
+
+  public CacheMetrics(String id) {
+    this.id = id;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void recordHit() {
+    hits.increment();
+  }
+
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  public void recordPut() {
+    puts.increment();
+  }
+
+  public void recordEviction() {
+    evictions.increment();
+  }
+
+  /**
+   * Records that a thread waited for another one to load the same key.
+   *
+   * @param nanos
+   *          the time the thread waited, in nanoseconds
+   */
+  public void recordBlockingWait(long nanos) {
+    blockingWaits.increment();
+    blockingWaitTime.add(nanos);
+  }
+
+  public void recordScheduledClear() {
+    scheduledClears.increment();
+  }
+
+  public void recordExpiration() {
+    expirations.increment();
+  }
+
+  /**
+   * Records the time spent to serialize or deserialize an object.
+   *
+   * @param nanos
+   *          the time spent, in nanoseconds
+   */
+  public void recordSerialization(long nanos) {
+    serializationTime.add(nanos);
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getRequests() {
+    return getHits() + getMisses();
+  }
+
+  /**
+   * Returns the ratio of requests that hit the cache.
+   *
+   * @return the hit ratio, or 0 if there has been no request
+   */
+  public double getHitRatio() {
+    long cacheHits = getHits();
+    long requests = cacheHits + getMisses();
+    return requests == 0 ? 0 : (double) cacheHits / requests;
+  }
+
+  public long getPuts() {
+    return puts.sum();
+  }
+
+  /**
+   * Returns the number of objects removed to make room for others, or because the garbage collector reclaimed them.
+   *
+   * @return the number of evictions
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public long getBlockingWaits() {
+    return blockingWaits.sum();
+  }
+
+  /**
+   * Returns the total time threads waited for other threads to load the same keys.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getBlockingWaitTime() {
+    return blockingWaitTime.sum();
+  }
+
+  public long getScheduledClears() {
+    return scheduledClears.sum();
+  }
+
+  /**
+   * Returns the number of objects removed because their time to live elapsed.
+   *
+   * @return the number of expirations
+   */
+  public long getExpirations() {
+    return expirations.sum();
+  }
+
+  /**
+   * Returns the total time spent to serialize and deserialize objects.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getSerializationTime() {
+    return serializationTime.sum();
+  }
+
+  /**
+   * Resets all counters to zero.
+   */
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    puts.reset();
+    evictions.reset();
+    blockingWaits.reset();
+    blockingWaitTime.reset();
+    scheduledClears.reset();
+    expirations.reset();
+    serializationTime.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "CacheMetrics[id=" + id + ", hits=" + getHits() + ", misses=" + getMisses() + ", puts=" + getPuts()
+        + ", evictions=" + getEvictions() + ", blockingWaits=" + getBlockingWaits() + ", blockingWaitTime="
+        + getBlockingWaitTime() + "ns, scheduledClears=" + getScheduledClears() + ", expirations=" + getExpirations()
+        + ", serializationTime=" + getSerializationTime() + "ns]";
+  }
+
+}
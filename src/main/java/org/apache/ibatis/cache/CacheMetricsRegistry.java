@@ -0,0 +1,65 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the {@link CacheMetrics} of the second level caches of a configuration, by cache id (the namespace of the
+ * mapper that declares the cache).
+ *
+ * @since 3.5.10
+ * @see org.apache.ibatis.session.Configuration#getCacheMetricsRegistry()
+ */
+public class CacheMetricsRegistry {
+
+  private final ConcurrentMap<String, CacheMetrics> metrics = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the metrics of a cache, creating them if they do not exist yet.
+   *
+   * @param id
+   *          the cache id
+   * @return the metrics
+   */
+  public CacheMetrics register(String id) {
+    return metrics.computeIfAbsent(id, CacheMetrics::new);
+  }
+
+  /**
+   * Returns the metrics of a cache.
+   *
+   * @param id
+   *          the cache id
+   * @return the metrics, or null if there is no cache with this id
+   */
+  public CacheMetrics getMetrics(String id) {
+    return metrics.get(id);
+  }
+
+  /**
+   * Returns the metrics of all caches.
+   *
+   * @return an unmodifiable view of the metrics, by cache id
+   */
+  public Map<String, CacheMetrics> getAllMetrics() {
+    return Collections.unmodifiableMap(metrics);
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Turns cached objects into bytes and back, for caches that store copies of their objects.
+ * <p>
+ * Implementations must be thread safe and must have a public no-arg constructor. Every call to
+ * {@link #deserialize(byte[])} must return a new copy, so that callers can modify it without affecting the cache.
+ *
+ * @since 3.5.10
+ * @see org.apache.ibatis.cache.impl.OffHeapCache
+ */
+public interface CacheSerializer {
+
+  /**
+   * Serializes an object.
+   *
+   * @param object
+   *          the object to serialize, can be null
+   * @return the serialized object
+   * @throws CacheException
+   *           if the object cannot be serialized
+   */
+  byte[] serialize(Object object);
+
+  /**
+   * Deserializes an object.
+   *
+   * @param bytes
+   *          bytes returned by {@link #serialize(Object)}
+   * @return a new copy of the serialized object
+   * @throws CacheException
+   *           if the object cannot be deserialized
+   */
+  Object deserialize(byte[] bytes);
+
+}
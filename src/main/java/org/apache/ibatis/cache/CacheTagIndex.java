@@ -0,0 +1,322 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the tags of the entries of a second level cache, used to invalidate only the entries a statement may have
+ * made stale instead of clearing the whole cache.
+ * <p>
+ * Tags are named values taken from the parameters of the statements that declare {@code cacheTags}. A write with tags
+ * invalidates every entry, except the entries that share a tag name with it but have another value for that tag. So
+ * an update tagged {@code id=1} keeps an entry tagged {@code id=2}, but invalidates entries tagged {@code id=1},
+ * entries without tags and entries with unrelated tags.
+ * <p>
+ * The index is kept up to date by a decorator that {@link #decorate(Cache) wraps} the base cache of the decorator
+ * chain, below the eviction decorators, so that it also sees evictions. It does nothing until a statement with tags
+ * {@link #enable() enables} it.
+ * <p>
+ * The entries are indexed by the names of their tags, then by tag name and value, so that a write only looks at the
+ * entries it invalidates: for each set of tag names, either all the entries if the write shares no tag name with them,
+ * or the entries that have the values of the write for the shared tag names.
+ *
+ * @since 3.5.10
+ */
+public class CacheTagIndex {
+
+  private final ConcurrentMap<Object, Map<String, Object>> entryTags = new ConcurrentHashMap<>();
+  // guarded by this
+  private final Map<Set<String>, TagGroup> groups = new HashMap<>();
+  private volatile boolean enabled;
+  private boolean decorated;
+
+  /**
+   * Wraps a cache so that this index sees its puts, removals and clears.
+   *
+   * @param cache
+   *          the base cache
+   * @return the decorated cache
+   */
+  public Cache decorate(Cache cache) {
+    decorated = true;
+    return new TagIndexCache(cache);
+  }
+
+  public boolean isDecorated() {
+    return decorated;
+  }
+
+  public void enable() {
+    enabled = true;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Sets the tags of an entry that is about to be put in the cache.
+   *
+   * @param key
+   *          the key of the entry
+   * @param tags
+   *          the tags of the entry
+   */
+  public void tag(Object key, Map<String, Object> tags) {
+    if (enabled) {
+      index(key, tags, true);
+    }
+  }
+
+  /**
+   * Returns whether an entry would be invalidated by any of the given writes. Entries this index does not know are
+   * considered invalidated.
+   *
+   * @param key
+   *          the key of the entry
+   * @param invalidations
+   *          the tags of the writes
+   * @return true if the entry is invalidated
+   */
+  public boolean isInvalidated(Object key, Collection<Map<String, Object>> invalidations) {
+    Map<String, Object> tags = entryTags.get(key);
+    return tags == null || invalidations.stream().anyMatch(invalidation -> isInvalidated(tags, invalidation));
+  }
+
+  /**
+   * Returns the keys of the entries invalidated by any of the given writes.
+   *
+   * @param invalidations
+   *          the tags of the writes
+   * @return the keys of the invalidated entries
+   */
+  public synchronized List<Object> getInvalidatedKeys(Collection<Map<String, Object>> invalidations) {
+    Set<Object> keys = new LinkedHashSet<>();
+    for (Map<String, Object> invalidation : invalidations) {
+      for (TagGroup group : groups.values()) {
+        group.addInvalidatedKeys(invalidation, keys);
+      }
+    }
+    return new ArrayList<>(keys);
+  }
+
+  /**
+   * Returns the value a tag is compared by. Integral numbers are compared by their long value, so that an Integer and
+   * a Long id are the same tag, while other values are compared as they are.
+   *
+   * @param value
+   *          the value of a parameter
+   * @return the tag value
+   */
+  public static Object tagValue(Object value) {
+    if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+      return ((BigInteger) value).longValue();
+    }
+    return value;
+  }
+
+  /**
+   * Returns whether a write with the given tags invalidates an entry with the given tags.
+   *
+   * @param entryTags
+   *          the tags of the entry
+   * @param writeTags
+   *          the tags of the write
+   * @return false if the entry and the write have different values for a tag name, true otherwise
+   */
+  public static boolean isInvalidated(Map<String, Object> entryTags, Map<String, Object> writeTags) {
+    for (Map.Entry<String, Object> tag : writeTags.entrySet()) {
+      if (entryTags.containsKey(tag.getKey()) && !Objects.equals(entryTags.get(tag.getKey()), tag.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private synchronized void index(Object key, Map<String, Object> tags, boolean replace) {
+    Map<String, Object> previous = replace ? entryTags.put(key, tags) : entryTags.putIfAbsent(key, tags);
+    if (previous != null) {
+      if (!replace) {
+        return;
+      }
+      unindex(key, previous);
+    }
+    TagGroup group = groups.get(tags.keySet());
+    if (group == null) {
+      group = new TagGroup();
+      groups.put(new HashSet<>(tags.keySet()), group);
+    }
+    group.add(key, tags);
+  }
+
+  private synchronized void remove(Object key) {
+    Map<String, Object> tags = entryTags.remove(key);
+    if (tags != null) {
+      unindex(key, tags);
+    }
+  }
+
+  private synchronized void removeAll() {
+    entryTags.clear();
+    groups.clear();
+  }
+
+  private void unindex(Object key, Map<String, Object> tags) {
+    TagGroup group = groups.get(tags.keySet());
+    if (group != null && group.remove(key, tags)) {
+      groups.remove(tags.keySet());
+    }
+  }
+
+  /**
+   * Entries that have the same tag names.
+   */
+  private class TagGroup {
+
+    private final Set<Object> keys = new HashSet<>();
+    private final Map<String, Map<Object, Set<Object>>> keysByTag = new HashMap<>();
+
+    void add(Object key, Map<String, Object> tags) {
+      keys.add(key);
+      for (Map.Entry<String, Object> tag : tags.entrySet()) {
+        keysByTag.computeIfAbsent(tag.getKey(), name -> new HashMap<>())
+            .computeIfAbsent(tag.getValue(), value -> new HashSet<>()).add(key);
+      }
+    }
+
+    /**
+     * @return true if the group is empty
+     */
+    boolean remove(Object key, Map<String, Object> tags) {
+      keys.remove(key);
+      for (Map.Entry<String, Object> tag : tags.entrySet()) {
+        Map<Object, Set<Object>> keysByValue = keysByTag.get(tag.getKey());
+        Set<Object> valueKeys = keysByValue.get(tag.getValue());
+        valueKeys.remove(key);
+        if (valueKeys.isEmpty()) {
+          keysByValue.remove(tag.getValue());
+        }
+      }
+      return keys.isEmpty();
+    }
+
+    void addInvalidatedKeys(Map<String, Object> writeTags, Set<Object> invalidatedKeys) {
+      // the entries with the values of the write for all the shared tag names, starting from the fewest candidates
+      Set<Object> candidates = keys;
+      boolean shared = false;
+      for (Map.Entry<String, Object> tag : writeTags.entrySet()) {
+        Map<Object, Set<Object>> keysByValue = keysByTag.get(tag.getKey());
+        if (keysByValue == null) {
+          continue;
+        }
+        Set<Object> valueKeys = keysByValue.get(tag.getValue());
+        if (valueKeys == null) {
+          return;
+        }
+        if (!shared || valueKeys.size() < candidates.size()) {
+          candidates = valueKeys;
+        }
+        shared = true;
+      }
+      if (!shared) {
+        invalidatedKeys.addAll(keys);
+        return;
+      }
+      for (Object key : candidates) {
+        if (isInvalidated(entryTags.get(key), writeTags)) {
+          invalidatedKeys.add(key);
+        }
+      }
+    }
+
+  }
+
+  private class TagIndexCache implements Cache {
+
+    private final Cache delegate;
+
+    TagIndexCache(Cache delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public String getId() {
+      return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+      return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+      if (enabled && !entryTags.containsKey(key)) {
+        index(key, Collections.emptyMap(), false);
+      }
+      delegate.putObject(key, value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+      if (enabled && !entryTags.containsKey(key)) {
+        // put before the index was enabled, it could never be invalidated
+        return null;
+      }
+      return delegate.getObject(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+      remove(key);
+      return delegate.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+      removeAll();
+      delegate.clear();
+    }
+
+    @Override
+    public int hashCode() {
+      return delegate.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return delegate.equals(obj);
+    }
+
+  }
+
+}
@@ -17,6 +17,7 @@ package org.apache.ibatis.cache;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
 import org.apache.ibatis.util.MapUtil;
@@ -27,6 +28,7 @@ import org.apache.ibatis.util.MapUtil;
 public class TransactionalCacheManager {
 
   private final Map<Cache, TransactionalCache> transactionalCaches = new HashMap<>();
+  private boolean pendingWrites;
 
   public void clear(Cache cache) {
     getTransactionalCache(cache).clear();
@@ -36,17 +38,76 @@ public class TransactionalCacheManager {
     return getTransactionalCache(cache).getObject(key);
   }
 
+  public Object getObject(Cache cache, CacheKey key, Callable<?> loader) throws Exception {
+    return getTransactionalCache(cache).getObject(key, null, loader, !pendingWrites);
+  }
+
+  /**
+   * Gets the object for the key, calling the loader on a cache miss. The loaded object is added with the given tags on
+   * commit.
+   *
+   * @param cache
+   *          the cache
+   * @param tagIndex
+   *          the tag index of the cache
+   * @param key
+   *          the key
+   * @param tags
+   *          the tags of the object
+   * @param loader
+   *          loads the object on a cache miss
+   * @return the cached or loaded object
+   * @throws Exception
+   *           any exception thrown by the loader
+   * @since 3.5.10
+   */
+  public Object getObject(Cache cache, CacheTagIndex tagIndex, CacheKey key, Map<String, Object> tags,
+      Callable<?> loader) throws Exception {
+    TransactionalCache txCache = getTransactionalCache(cache);
+    txCache.setTagIndex(tagIndex);
+    return txCache.getObject(key, tags, loader, !pendingWrites);
+  }
+
+  /**
+   * Invalidates on commit the entries of the cache that a write with the given tags may have made stale.
+   *
+   * @param cache
+   *          the cache
+   * @param tagIndex
+   *          the tag index of the cache
+   * @param tags
+   *          the tags of the write
+   * @since 3.5.10
+   */
+  public void invalidate(Cache cache, CacheTagIndex tagIndex, Map<String, Object> tags) {
+    TransactionalCache txCache = getTransactionalCache(cache);
+    txCache.setTagIndex(tagIndex);
+    txCache.invalidate(tags);
+  }
+
   public void putObject(Cache cache, CacheKey key, Object value) {
     getTransactionalCache(cache).putObject(key, value);
   }
 
+  /**
+   * Records that the session wrote to the database, so that until the transaction ends its loads are not shared with
+   * other sessions, which must not see uncommitted data.
+   *
+   * @since 3.5.10
+   */
+  public void markPendingWrites() {
+    pendingWrites = true;
+  }
+
   public void commit() {
+    pendingWrites = false;
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.commit();
     }
   }
 
   public void rollback() {
+    pendingWrites = false;
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.rollback();
     }
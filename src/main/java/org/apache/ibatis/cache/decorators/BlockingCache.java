@@ -21,6 +21,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheMetrics;
 
 /**
  * <p>Simple blocking decorator
@@ -39,6 +40,7 @@ public class BlockingCache implements Cache {
   private long timeout;
   private final Cache delegate;
   private final ConcurrentHashMap<Object, CountDownLatch> locks;
+  private CacheMetrics metrics;
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
@@ -93,6 +95,7 @@ public class BlockingCache implements Cache {
       if (latch == null) {
         break;
       }
+      long start = System.nanoTime();
       try {
         if (timeout > 0) {
           boolean acquired = latch.await(timeout, TimeUnit.MILLISECONDS);
@@ -105,6 +108,10 @@ public class BlockingCache implements Cache {
         }
       } catch (InterruptedException e) {
         throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+      } finally {
+        if (metrics != null) {
+          metrics.recordBlockingWait(System.nanoTime() - start);
+        }
       }
     }
   }
@@ -124,4 +131,15 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  /**
+   * Sets the metrics that waits for locks are recorded to.
+   *
+   * @param metrics
+   *          the metrics
+   * @since 3.5.10
+   */
+  public void setMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
 }
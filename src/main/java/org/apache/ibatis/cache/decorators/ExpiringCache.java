@@ -0,0 +1,202 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheMetrics;
+
+/**
+ * Time to live decorator.
+ * <p>
+ * Unlike {@link ScheduledCache}, which clears the whole cache when its interval elapses, each entry expires on its own
+ * once its time to live has elapsed since it was put. All entries have the same time to live, so they expire in the
+ * order they were put: expired entries are removed from the head of a queue on each access, without scanning the
+ * cache.
+ * <p>
+ * With a refresh ahead time, the first thread that reads an entry during that time before its expiration gets a miss,
+ * so that it loads and puts a fresh value, while the other threads keep getting the current value.
+ *
+ * @since 3.5.10
+ */
+public class ExpiringCache implements Cache {
+
+  private final Cache delegate;
+  private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>();
+  private final Queue<Entry> expirationQueue = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock expirationLock = new ReentrantLock();
+  private volatile long timeToLive = TimeUnit.HOURS.toNanos(1);
+  private volatile long refreshAhead;
+  private CacheMetrics metrics;
+
+  public ExpiringCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Sets the time an entry stays in the cache after it was put.
+   *
+   * @param timeToLive
+   *          the time to live in milliseconds
+   */
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+  }
+
+  /**
+   * Sets the time before the expiration of an entry during which a read triggers a refresh. Zero, the default,
+   * disables refresh ahead.
+   *
+   * @param refreshAhead
+   *          the refresh ahead time in milliseconds
+   */
+  public void setRefreshAhead(long refreshAhead) {
+    this.refreshAhead = TimeUnit.MILLISECONDS.toNanos(refreshAhead);
+  }
+
+  /**
+   * Sets the metrics that expirations are recorded to.
+   *
+   * @param metrics
+   *          the metrics
+   */
+  public void setMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    expireEntries(System.nanoTime());
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    long now = System.nanoTime();
+    expireEntries(now);
+    Entry entry = new Entry(key, now + timeToLive);
+    entries.put(key, entry);
+    expirationQueue.offer(entry);
+    delegate.putObject(key, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    long now = System.nanoTime();
+    expireEntries(now);
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (now - entry.expiration >= 0) {
+      expire(entry);
+      return null;
+    }
+    if (refreshAhead > 0 && now - (entry.expiration - refreshAhead) >= 0 && entry.claimRefresh()) {
+      // this thread reloads the entry, the others keep reading it until it expires
+      return null;
+    }
+    Object value = delegate.getObject(key);
+    if (value == null) {
+      // the delegate has evicted the entry, its expiration does not need to be tracked anymore
+      entries.remove(key, entry);
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    entries.remove(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    expirationQueue.clear();
+    delegate.clear();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private void expireEntries(long now) {
+    Entry head = expirationQueue.peek();
+    if (head == null || now - head.expiration < 0) {
+      return;
+    }
+    // only one thread needs to remove expired entries, the others carry on
+    if (!expirationLock.tryLock()) {
+      return;
+    }
+    try {
+      while ((head = expirationQueue.peek()) != null && now - head.expiration >= 0) {
+        expirationQueue.poll();
+        expire(head);
+      }
+    } finally {
+      expirationLock.unlock();
+    }
+  }
+
+  private void expire(Entry entry) {
+    // the entry may have been put again or removed in the meantime
+    if (entries.remove(entry.key, entry)) {
+      delegate.removeObject(entry.key);
+      if (metrics != null) {
+        metrics.recordExpiration();
+      }
+    }
+  }
+
+  private static class Entry {
+
+    private final Object key;
+    private final long expiration;
+    private final AtomicReference<Thread> refresher = new AtomicReference<>();
+
+    Entry(Object key, long expiration) {
+      this.key = key;
+      this.expiration = expiration;
+    }
+
+    boolean claimRefresh() {
+      Thread current = Thread.currentThread();
+      return refresher.compareAndSet(null, current) || refresher.get() == current;
+    }
+
+  }
+
+}
@@ -15,7 +15,10 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheMetrics;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -28,12 +31,27 @@ public class LoggingCache implements Cache {
   private final Cache delegate;
   protected int requests = 0;
   protected int hits = 0;
+  // the ratio is computed from these, which count without races or a lock, as the delegate may not be synchronized
+  private final LongAdder requestCount = new LongAdder();
+  private final LongAdder hitCount = new LongAdder();
+  private CacheMetrics metrics;
 
   public LoggingCache(Cache delegate) {
     this.delegate = delegate;
     this.log = LogFactory.getLog(getId());
   }
 
+  /**
+   * Sets the metrics that hits, misses and puts are recorded to.
+   *
+   * @param metrics
+   *          the metrics
+   * @since 3.5.10
+   */
+  public void setMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
+
   @Override
   public String getId() {
     return delegate.getId();
@@ -47,14 +65,26 @@ public class LoggingCache implements Cache {
   @Override
   public void putObject(Object key, Object object) {
     delegate.putObject(key, object);
+    if (metrics != null) {
+      metrics.recordPut();
+    }
   }
 
   @Override
   public Object getObject(Object key) {
     requests++;
+    requestCount.increment();
     final Object value = delegate.getObject(key);
     if (value != null) {
       hits++;
+      hitCount.increment();
+    }
+    if (metrics != null) {
+      if (value != null) {
+        metrics.recordHit();
+      } else {
+        metrics.recordMiss();
+      }
     }
     if (log.isDebugEnabled()) {
       log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
@@ -83,7 +113,7 @@ public class LoggingCache implements Cache {
   }
 
   private double getHitRatio() {
-    return (double) hits / (double) requests;
+    return (double) hitCount.sum() / (double) requestCount.sum();
   }
 
 }
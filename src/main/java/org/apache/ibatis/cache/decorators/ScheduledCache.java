@@ -18,6 +18,7 @@ package org.apache.ibatis.cache.decorators;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheMetrics;
 
 /**
  * @author Clinton Begin
@@ -27,6 +28,7 @@ public class ScheduledCache implements Cache {
   private final Cache delegate;
   protected long clearInterval;
   protected long lastClear;
+  private CacheMetrics metrics;
 
   public ScheduledCache(Cache delegate) {
     this.delegate = delegate;
@@ -38,6 +40,17 @@ public class ScheduledCache implements Cache {
     this.clearInterval = clearInterval;
   }
 
+  /**
+   * Sets the metrics that scheduled clears are recorded to.
+   *
+   * @param metrics
+   *          the metrics
+   * @since 3.5.10
+   */
+  public void setMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
+
   @Override
   public String getId() {
     return delegate.getId();
@@ -85,6 +98,9 @@ public class ScheduledCache implements Cache {
   private boolean clearWhenStale() {
     if (System.currentTimeMillis() - lastClear > clearInterval) {
       clear();
+      if (metrics != null) {
+        metrics.recordScheduledClear();
+      }
       return true;
     }
     return false;
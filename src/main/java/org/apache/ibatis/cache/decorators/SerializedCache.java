@@ -26,6 +26,7 @@ import java.io.Serializable;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheMetrics;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.SerialFilterChecker;
 
@@ -35,11 +36,23 @@ import org.apache.ibatis.io.SerialFilterChecker;
 public class SerializedCache implements Cache {
 
   private final Cache delegate;
+  private CacheMetrics metrics;
 
   public SerializedCache(Cache delegate) {
     this.delegate = delegate;
   }
 
+  /**
+   * Sets the metrics that serialization times are recorded to.
+   *
+   * @param metrics
+   *          the metrics
+   * @since 3.5.10
+   */
+  public void setMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
+
   @Override
   public String getId() {
     return delegate.getId();
@@ -86,6 +99,28 @@ public class SerializedCache implements Cache {
   }
 
   private byte[] serialize(Serializable value) {
+    long start = System.nanoTime();
+    try {
+      return toBytes(value);
+    } finally {
+      if (metrics != null) {
+        metrics.recordSerialization(System.nanoTime() - start);
+      }
+    }
+  }
+
+  private Serializable deserialize(byte[] value) {
+    long start = System.nanoTime();
+    try {
+      return fromBytes(value);
+    } finally {
+      if (metrics != null) {
+        metrics.recordSerialization(System.nanoTime() - start);
+      }
+    }
+  }
+
+  static byte[] toBytes(Serializable value) {
     try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
         ObjectOutputStream oos = new ObjectOutputStream(bos)) {
       oos.writeObject(value);
@@ -96,16 +131,14 @@ public class SerializedCache implements Cache {
     }
   }
 
-  private Serializable deserialize(byte[] value) {
+  static Serializable fromBytes(byte[] value) {
     SerialFilterChecker.check();
-    Serializable result;
     try (ByteArrayInputStream bis = new ByteArrayInputStream(value);
         ObjectInputStream ois = new CustomObjectInputStream(bis)) {
-      result = (Serializable) ois.readObject();
+      return (Serializable) ois.readObject();
     } catch (Exception e) {
       throw new CacheException("Error deserializing object.  Cause: " + e, e);
     }
-    return result;
   }
 
   public static class CustomObjectInputStream extends ObjectInputStream {
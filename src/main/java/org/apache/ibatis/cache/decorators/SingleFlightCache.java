@@ -0,0 +1,181 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheMetrics;
+
+/**
+ * <p>Single flight loading decorator
+ *
+ * <p>Concurrent misses for the same key are coalesced into one load: the first thread that misses runs the loader and
+ * the others wait for its result, or for its failure, on a shared future. Hits never wait.
+ *
+ * <p>Unlike {@link BlockingCache} no lock is held once the load is over. The waiting threads get the loaded value from
+ * the shared future only, as a copy if values are copied. Nothing is put in the delegate by the load: the value is put
+ * there when the transaction that loaded it commits, so that other sessions never read it from the cache before.
+ */
+public class SingleFlightCache implements Cache {
+
+  private final Cache delegate;
+  private final ConcurrentHashMap<Object, Load> loads;
+  private CacheMetrics metrics;
+  private boolean copyValues;
+
+  public SingleFlightCache(Cache delegate) {
+    this.delegate = delegate;
+    this.loads = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Sets the metrics that waits for loads are recorded to.
+   *
+   * @param metrics
+   *          the metrics
+   * @since 3.5.10
+   */
+  public void setMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Sets whether the waiting threads get a serialized copy of the loaded value, as they would from a read/write cache,
+   * rather than the instance returned to the loading thread.
+   *
+   * @param copyValues
+   *          whether to copy loaded values
+   * @since 3.5.10
+   */
+  public void setCopyValues(boolean copyValues) {
+    this.copyValues = copyValues;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  /**
+   * Gets the object stored in the cache, calling the loader if there is none. If another thread is already loading the
+   * same key, waits for it instead.
+   *
+   * @param key
+   *          The key
+   * @param loader
+   *          Loads the object on a cache miss
+   * @return The cached or loaded object
+   * @throws Exception
+   *           Any exception thrown by the loader. Waiting threads get it wrapped in a {@link CacheException}
+   */
+  public Object getObject(Object key, Callable<?> loader) throws Exception {
+    Object value = delegate.getObject(key);
+    if (value != null) {
+      return value;
+    }
+    Load load = new Load();
+    Load inFlight = loads.putIfAbsent(key, load);
+    if (inFlight != null) {
+      if (inFlight.owner == Thread.currentThread()) {
+        // nested load of the same key, waiting would never end
+        return loader.call();
+      }
+      return await(key, inFlight);
+    }
+    try {
+      // the previous load may have been committed after the first read
+      value = delegate.getObject(key);
+      if (value == null) {
+        value = loader.call();
+      }
+      completeLoad(load, value);
+      return value;
+    } catch (Exception | Error e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      loads.remove(key, load);
+    }
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+  private void completeLoad(Load load, Object value) {
+    if (!copyValues || value == null) {
+      load.complete(value);
+    } else if (value instanceof Serializable) {
+      try {
+        load.complete(SerializedCache.toBytes((Serializable) value));
+      } catch (CacheException e) {
+        load.completeExceptionally(e);
+      }
+    } else {
+      load.completeExceptionally(new CacheException("SharedCache failed to make a copy of a non-serializable object: " + value));
+    }
+  }
+
+  private Object await(Object key, Load load) {
+    Object value;
+    long start = System.nanoTime();
+    try {
+      value = load.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CacheException("Got interrupted while waiting for key " + key + " to be loaded", e);
+    } catch (ExecutionException e) {
+      throw new CacheException("Error loading key " + key + " at the cache " + delegate.getId() + ". Cause: " + e.getCause(), e.getCause());
+    } finally {
+      if (metrics != null) {
+        metrics.recordBlockingWait(System.nanoTime() - start);
+      }
+    }
+    return copyValues && value != null ? SerializedCache.fromBytes((byte[]) value) : value;
+  }
+
+  private static class Load extends CompletableFuture<Object> {
+    private final Thread owner = Thread.currentThread();
+  }
+
+}
@@ -15,12 +15,18 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheTagIndex;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -43,12 +49,17 @@ public class TransactionalCache implements Cache {
   private boolean clearOnCommit;
   private final Map<Object, Object> entriesToAddOnCommit;
   private final Set<Object> entriesMissedInCache;
+  private final Map<Object, Map<String, Object>> entryTagsToAddOnCommit;
+  private final List<Map<String, Object>> invalidationsOnCommit;
+  private CacheTagIndex tagIndex;
 
   public TransactionalCache(Cache delegate) {
     this.delegate = delegate;
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
     this.entriesMissedInCache = new HashSet<>();
+    this.entryTagsToAddOnCommit = new HashMap<>();
+    this.invalidationsOnCommit = new ArrayList<>();
   }
 
   @Override
@@ -69,16 +80,104 @@ public class TransactionalCache implements Cache {
       entriesMissedInCache.add(key);
     }
     // issue #146
-    if (clearOnCommit) {
+    if (clearOnCommit || object != null && isInvalidated(key)) {
       return null;
     } else {
       return object;
     }
   }
 
+  /**
+   * Gets the object for the key, calling the loader on a cache miss. The loaded object is added on commit. If the
+   * delegate is a {@link SingleFlightCache}, concurrent misses for the same key share a single load.
+   *
+   * @param key
+   *          The key
+   * @param loader
+   *          Loads the object on a cache miss
+   * @return The cached or loaded object
+   * @throws Exception
+   *           Any exception thrown by the loader
+   */
+  public Object getObject(Object key, Callable<?> loader) throws Exception {
+    return getObject(key, null, loader);
+  }
+
+  /**
+   * Gets the object for the key, calling the loader on a cache miss. The loaded object is added with the given tags on
+   * commit.
+   *
+   * @param key
+   *          The key
+   * @param tags
+   *          The tags of the object, can be null
+   * @param loader
+   *          Loads the object on a cache miss
+   * @return The cached or loaded object
+   * @throws Exception
+   *           Any exception thrown by the loader
+   * @since 3.5.10
+   * @see CacheTagIndex
+   */
+  public Object getObject(Object key, Map<String, Object> tags, Callable<?> loader) throws Exception {
+    return getObject(key, tags, loader, true);
+  }
+
+  /**
+   * Gets the object for the key, calling the loader on a cache miss. The loaded object is added with the given tags on
+   * commit. The load is shared with other sessions only if allowed, and if this cache has neither been cleared nor
+   * invalidated in the current transaction.
+   *
+   * @param key
+   *          The key
+   * @param tags
+   *          The tags of the object, can be null
+   * @param loader
+   *          Loads the object on a cache miss
+   * @param shareLoad
+   *          Whether the load may be shared with other sessions, which is not the case when the session has pending
+   *          writes the loader would see
+   * @return The cached or loaded object
+   * @throws Exception
+   *           Any exception thrown by the loader
+   * @since 3.5.10
+   */
+  public Object getObject(Object key, Map<String, Object> tags, Callable<?> loader, boolean shareLoad) throws Exception {
+    Object object = getObject(key);
+    if (object == null) {
+      if (shareLoad && !clearOnCommit && invalidationsOnCommit.isEmpty() && delegate instanceof SingleFlightCache) {
+        object = ((SingleFlightCache) delegate).getObject(key, loader);
+      } else {
+        object = loader.call();
+      }
+      putObject(key, object, tags);
+    }
+    return object;
+  }
+
   @Override
   public void putObject(Object key, Object object) {
+    putObject(key, object, null);
+  }
+
+  /**
+   * Adds an object with tags on commit.
+   *
+   * @param key
+   *          The key
+   * @param object
+   *          The object
+   * @param tags
+   *          The tags of the object, can be null
+   * @since 3.5.10
+   */
+  public void putObject(Object key, Object object, Map<String, Object> tags) {
     entriesToAddOnCommit.put(key, object);
+    if (tags != null) {
+      entryTagsToAddOnCommit.put(key, tags);
+    } else {
+      entryTagsToAddOnCommit.remove(key);
+    }
   }
 
   @Override
@@ -90,11 +189,54 @@ public class TransactionalCache implements Cache {
   public void clear() {
     clearOnCommit = true;
     entriesToAddOnCommit.clear();
+    entryTagsToAddOnCommit.clear();
+  }
+
+  /**
+   * Sets the index of the tags of the delegate entries. Without an index, tags are ignored and invalidations clear the
+   * cache.
+   *
+   * @param tagIndex
+   *          The tag index of the delegate
+   * @since 3.5.10
+   */
+  public void setTagIndex(CacheTagIndex tagIndex) {
+    this.tagIndex = tagIndex;
+  }
+
+  /**
+   * Invalidates on commit the entries a write with the given tags may have made stale. Falls back to {@link #clear()}
+   * when there is no tag index, or when the delegate is a {@link BlockingCache}, whose entries cannot be removed one by
+   * one.
+   *
+   * @param tags
+   *          The tags of the write
+   * @since 3.5.10
+   * @see CacheTagIndex
+   */
+  public void invalidate(Map<String, Object> tags) {
+    if (tagIndex == null || delegate instanceof BlockingCache) {
+      clear();
+      return;
+    }
+    invalidationsOnCommit.add(tags);
+    for (Iterator<Object> it = entriesToAddOnCommit.keySet().iterator(); it.hasNext();) {
+      Object key = it.next();
+      Map<String, Object> entryTags = entryTagsToAddOnCommit.get(key);
+      if (entryTags == null || CacheTagIndex.isInvalidated(entryTags, tags)) {
+        it.remove();
+        entryTagsToAddOnCommit.remove(key);
+      }
+    }
   }
 
   public void commit() {
     if (clearOnCommit) {
       delegate.clear();
+    } else if (!invalidationsOnCommit.isEmpty()) {
+      for (Object key : tagIndex.getInvalidatedKeys(invalidationsOnCommit)) {
+        delegate.removeObject(key);
+      }
     }
     flushPendingEntries();
     reset();
@@ -109,10 +251,20 @@ public class TransactionalCache implements Cache {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
     entriesMissedInCache.clear();
+    entryTagsToAddOnCommit.clear();
+    invalidationsOnCommit.clear();
+  }
+
+  private boolean isInvalidated(Object key) {
+    return !invalidationsOnCommit.isEmpty() && tagIndex.isInvalidated(key, invalidationsOnCommit);
   }
 
   private void flushPendingEntries() {
     for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
+      if (tagIndex != null) {
+        Map<String, Object> tags = entryTagsToAddOnCommit.get(entry.getKey());
+        tagIndex.tag(entry.getKey(), tags != null ? tags : Collections.emptyMap());
+      }
       delegate.putObject(entry.getKey(), entry.getValue());
     }
     for (Object entry : entriesMissedInCache) {
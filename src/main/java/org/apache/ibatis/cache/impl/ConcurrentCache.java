@@ -0,0 +1,203 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheMetrics;
+
+/**
+ * Thread safe cache with a built-in CLOCK (second chance) eviction policy.
+ * <p>
+ * Unlike {@link PerpetualCache} this cache does not need to be wrapped by a
+ * {@link org.apache.ibatis.cache.decorators.SynchronizedCache} nor by an eviction decorator, so reads never take a
+ * lock. A hit only sets the referenced flag of the entry. When the cache grows beyond its size, the thread that put
+ * the last entry sweeps the clock: referenced entries get a second chance and the others are removed. Removed entries
+ * are left in the clock and skipped by the sweep, until there are more of them than the size of the cache.
+ */
+public class ConcurrentCache implements Cache {
+
+  private final String id;
+
+  private final ConcurrentMap<Object, Entry> cache = new ConcurrentHashMap<>();
+  private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final AtomicInteger removedEntries = new AtomicInteger();
+  private volatile int size = 1024;
+  private CacheMetrics metrics;
+
+  public ConcurrentCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return cache.size();
+  }
+
+  public void setSize(int size) {
+    this.size = size;
+  }
+
+  /**
+   * Sets the metrics that evictions are recorded to.
+   *
+   * @param metrics
+   *          the metrics
+   * @since 3.5.10
+   */
+  public void setMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    Entry entry = new Entry(key, value);
+    Entry existing = cache.putIfAbsent(key, entry);
+    if (existing != null) {
+      existing.value = value;
+      existing.referenced = true;
+      return;
+    }
+    clock.offer(entry);
+    if (cache.size() > size) {
+      evict();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Entry entry = cache.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (!entry.referenced) {
+      entry.referenced = true;
+    }
+    return entry.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Entry entry = cache.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    if (removedEntries.incrementAndGet() > size) {
+      purgeRemovedEntries();
+    }
+    return entry.value;
+  }
+
+  @Override
+  public void clear() {
+    // the clock first, so that an entry put meanwhile is at worst left in the clock only, where it is skipped
+    clock.clear();
+    cache.clear();
+    removedEntries.set(0);
+  }
+
+  private void purgeRemovedEntries() {
+    if (!evictionLock.tryLock()) {
+      return;
+    }
+    try {
+      removedEntries.set(0);
+      clock.removeIf(entry -> cache.get(entry.key) != entry);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void evict() {
+    // only one thread needs to sweep, the others carry on
+    if (!evictionLock.tryLock()) {
+      return;
+    }
+    try {
+      while (cache.size() > size) {
+        Entry entry = clock.poll();
+        if (entry == null) {
+          break;
+        }
+        if (cache.get(entry.key) != entry) {
+          // removed or cleared in the meantime
+          continue;
+        }
+        if (entry.referenced) {
+          entry.referenced = false;
+          clock.offer(entry);
+        } else {
+          if (cache.remove(entry.key, entry) && metrics != null) {
+            metrics.recordEviction();
+          }
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static class Entry {
+
+    private final Object key;
+    private volatile Object value;
+    private volatile boolean referenced;
+
+    Entry(Object key, Object value) {
+      this.key = key;
+      this.value = value;
+    }
+
+  }
+
+}
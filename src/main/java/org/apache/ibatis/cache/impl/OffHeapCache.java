@@ -0,0 +1,334 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheMetrics;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.io.Resources;
+
+/**
+ * Thread safe cache that keeps its objects serialized outside of the Java heap, bounded by the number of bytes they
+ * take.
+ * <p>
+ * Memory is allocated in direct buffer slabs of up to 1 MiB, which are split into fixed size blocks. An object takes
+ * as many blocks as its serialized form needs. When there are not enough free blocks for a new object, the least
+ * recently used objects are evicted. Slabs are only allocated as the cache grows, and are kept until the cache is
+ * garbage collected.
+ * <p>
+ * Every read deserializes a new copy of the cached object, so this cache provides the same isolation as a read-write
+ * cache without a {@link org.apache.ibatis.cache.decorators.SerializedCache}. Objects are serialized with Java
+ * serialization unless another {@link CacheSerializer} is set.
+ *
+ * @since 3.5.10
+ */
+public class OffHeapCache implements Cache {
+
+  private static final int MAXIMUM_SLAB_SIZE = 1 << 20;
+
+  private final String id;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final List<ByteBuffer> slabs = new ArrayList<>();
+  private int[] freeBlocks = new int[0];
+  private int freeBlockCount;
+  private int allocatedBlockCount;
+
+  private volatile CacheSerializer serializer = new JavaCacheSerializer();
+  private long capacity = 64L << 20;
+  private int blockSize = 1024;
+  private int maximumBlockCount;
+  private int blocksPerSlab;
+  private CacheMetrics metrics;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+    reset();
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Sets the maximum number of bytes used to store the serialized objects. Clears the cache.
+   *
+   * @param capacity
+   *          the capacity in bytes. Default is 64 MiB
+   */
+  public void setCapacity(long capacity) {
+    if (capacity <= 0) {
+      throw new CacheException("The capacity of an off heap cache must be positive, but was " + capacity);
+    }
+    lock.lock();
+    try {
+      this.capacity = capacity;
+      reset();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Sets the size of the blocks memory is split into. Smaller blocks waste less memory on small objects but take more
+   * bookkeeping for large ones. Clears the cache.
+   *
+   * @param blockSize
+   *          the block size in bytes. Default is 1024
+   */
+  public void setBlockSize(int blockSize) {
+    if (blockSize <= 0 || blockSize > MAXIMUM_SLAB_SIZE) {
+      throw new CacheException("The block size of an off heap cache must be between 1 and " + MAXIMUM_SLAB_SIZE
+          + ", but was " + blockSize);
+    }
+    lock.lock();
+    try {
+      this.blockSize = blockSize;
+      reset();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sets the serializer used to store objects.
+   *
+   * @param serializer
+   *          the fully qualified name of a {@link CacheSerializer} implementation
+   */
+  public void setSerializer(String serializer) {
+    try {
+      this.serializer = (CacheSerializer) Resources.classForName(serializer).getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Error creating cache serializer '" + serializer + "'.  Cause: " + e, e);
+    }
+  }
+
+  /**
+   * Sets the metrics that evictions are recorded to.
+   *
+   * @param metrics
+   *          the metrics
+   * @since 3.5.10
+   */
+  public void setMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    byte[] bytes = serializer.serialize(value);
+    int blockCount = Math.max((bytes.length + blockSize - 1) / blockSize, 1);
+    lock.lock();
+    try {
+      release(entries.remove(key));
+      if (blockCount > maximumBlockCount) {
+        // would never fit
+        return;
+      }
+      while (freeBlockCount < blockCount && !allocateSlab()) {
+        evictEldest();
+      }
+      int[] blocks = new int[blockCount];
+      for (int i = 0; i < blockCount; i++) {
+        int block = freeBlocks[--freeBlockCount];
+        blocks[i] = block;
+        int offset = i * blockSize;
+        int length = Math.min(blockSize, bytes.length - offset);
+        block(block, length).put(bytes, offset, length);
+      }
+      entries.put(key, new Entry(blocks, bytes.length));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] bytes;
+    lock.lock();
+    try {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      bytes = new byte[entry.length];
+      for (int i = 0; i < entry.blocks.length; i++) {
+        int offset = i * blockSize;
+        int length = Math.min(blockSize, bytes.length - offset);
+        block(entry.blocks[i], length).get(bytes, offset, length);
+      }
+    } finally {
+      lock.unlock();
+    }
+    // outside of the lock, it is the expensive part
+    return serializer.deserialize(bytes);
+  }
+
+  /**
+   * Removes an object from the cache. The removed object is not deserialized.
+   *
+   * @param key
+   *          The key
+   * @return always null
+   */
+  @Override
+  public Object removeObject(Object key) {
+    lock.lock();
+    try {
+      release(entries.remove(key));
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      entries.clear();
+      freeBlockCount = 0;
+      for (int block = 0; block < allocatedBlockCount; block++) {
+        freeBlocks[freeBlockCount++] = block;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void reset() {
+    entries.clear();
+    slabs.clear();
+    freeBlocks = new int[0];
+    freeBlockCount = 0;
+    allocatedBlockCount = 0;
+    maximumBlockCount = (int) Math.min(capacity / blockSize, Integer.MAX_VALUE);
+    blocksPerSlab = Math.max(Math.min(MAXIMUM_SLAB_SIZE / blockSize, maximumBlockCount), 1);
+  }
+
+  private boolean allocateSlab() {
+    int blockCount = Math.min(blocksPerSlab, maximumBlockCount - allocatedBlockCount);
+    if (blockCount <= 0) {
+      return false;
+    }
+    slabs.add(ByteBuffer.allocateDirect(blockCount * blockSize));
+    if (freeBlocks.length < allocatedBlockCount + blockCount) {
+      freeBlocks = Arrays.copyOf(freeBlocks, allocatedBlockCount + blockCount);
+    }
+    // pushed in reverse, so that blocks are taken in address order
+    for (int block = allocatedBlockCount + blockCount - 1; block >= allocatedBlockCount; block--) {
+      freeBlocks[freeBlockCount++] = block;
+    }
+    allocatedBlockCount += blockCount;
+    return true;
+  }
+
+  private void evictEldest() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    Entry eldest = iterator.next();
+    iterator.remove();
+    release(eldest);
+    if (metrics != null) {
+      metrics.recordEviction();
+    }
+  }
+
+  private void release(Entry entry) {
+    if (entry != null) {
+      for (int block : entry.blocks) {
+        freeBlocks[freeBlockCount++] = block;
+      }
+    }
+  }
+
+  private ByteBuffer block(int block, int length) {
+    ByteBuffer buffer = slabs.get(block / blocksPerSlab).duplicate();
+    int offset = block % blocksPerSlab * blockSize;
+    // through Buffer, the covariant ByteBuffer overrides do not exist on Java 8
+    ((Buffer) buffer).limit(offset + length);
+    ((Buffer) buffer).position(offset);
+    return buffer;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static class Entry {
+
+    private final int[] blocks;
+    private final int length;
+
+    Entry(int[] blocks, int length) {
+      this.blocks = blocks;
+      this.length = length;
+    }
+
+  }
+
+}
@@ -21,7 +21,8 @@ import java.io.Closeable;
  * Cursor contract to handle fetching items lazily using an Iterator.
  * Cursors are a perfect fit to handle millions of items queries that would not normally fit in memory.
  * If you use collections in resultMaps then cursor SQL queries must be ordered (resultOrdered="true")
- * using the id columns of the resultMap.
+ * using the id columns of the resultMap. If they are ordered by the id columns of the nested resultMaps as well,
+ * resultStreamed="true" keeps only the objects of the current row in memory.
  *
  * @author Guillaume Darmont / guillaume@dropinocean.com
  */
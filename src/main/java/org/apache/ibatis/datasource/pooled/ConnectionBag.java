@@ -0,0 +1,205 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Holds the connections of a {@link PooledDataSource} that runs in lock-free checkout mode.
+ * <p>
+ * Idle connections are kept in a LIFO deque, and the connection a thread returned last is remembered in a thread
+ * local so that the same thread can usually take it back without touching the shared deque. The maximum number of
+ * active connections is enforced by a semaphore. An idle connection can be reached from both the deque and a thread
+ * local, so it is handed out only to the caller that wins {@link PooledConnection#tryClaim()}. A connection taken
+ * through a thread local is left in the deque, and is dropped from it later by whoever comes across it claimed.
+ * <p>
+ * The thread locals only hold weak references, so that threads that outlive the pool do not keep its connections.
+ *
+ * @author Clinton Begin
+ */
+class ConnectionBag {
+
+  private final Semaphore activePermits;
+  private final int maximumIdle;
+  private final ConcurrentLinkedDeque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+  private final Set<PooledConnection> activeConnections = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final ThreadLocal<WeakReference<PooledConnection>> lastReturned = new ThreadLocal<>();
+
+  ConnectionBag(int maximumActive, int maximumIdle) {
+    this.activePermits = new Semaphore(Math.max(maximumActive, 0));
+    this.maximumIdle = maximumIdle;
+  }
+
+  boolean tryAcquirePermit() {
+    return activePermits.tryAcquire();
+  }
+
+  boolean tryAcquirePermit(long timeoutMillis) throws InterruptedException {
+    return activePermits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  void releasePermit() {
+    activePermits.release();
+  }
+
+  /**
+   * Takes an idle connection, preferring the one the current thread returned last.
+   *
+   * @return the claimed connection, or null if there is no idle connection
+   */
+  PooledConnection pollIdle() {
+    WeakReference<PooledConnection> reference = lastReturned.get();
+    PooledConnection conn;
+    if (reference != null) {
+      lastReturned.remove();
+      conn = reference.get();
+      if (conn != null && conn.tryClaim()) {
+        idleCount.decrementAndGet();
+        return conn;
+      }
+    }
+    while ((conn = idleConnections.pollFirst()) != null) {
+      if (conn.tryClaim()) {
+        idleCount.decrementAndGet();
+        return conn;
+      }
+      // claimed through a thread local in the meantime
+    }
+    return null;
+  }
+
+  /**
+   * Adds a connection to the idle connections unless the maximum number of idle connections has been reached.
+   *
+   * @param conn
+   *          the connection to add
+   * @param returned
+   *          whether the current thread returns the connection after using it, so that it takes it back first
+   * @return true if the connection was added
+   */
+  boolean offerIdle(PooledConnection conn, boolean returned) {
+    if (idleCount.incrementAndGet() > maximumIdle) {
+      idleCount.decrementAndGet();
+      return false;
+    }
+    // the connection this thread took back last is usually still at the head, the iterator removes that very node as
+    // equals() matches other wrappers of the same real connection
+    for (Iterator<PooledConnection> it = idleConnections.iterator(); it.hasNext() && it.next().isClaimed();) {
+      it.remove();
+    }
+    idleConnections.offerFirst(conn);
+    if (returned) {
+      lastReturned.set(new WeakReference<>(conn));
+    }
+    return true;
+  }
+
+  /**
+   * Takes the idle connections that match the given filter.
+   *
+   * @param filter
+   *          the filter
+   * @return the claimed connections
+   */
+  List<PooledConnection> claimIdle(Predicate<PooledConnection> filter) {
+    List<PooledConnection> connections = new ArrayList<>();
+    for (Iterator<PooledConnection> it = idleConnections.iterator(); it.hasNext();) {
+      PooledConnection conn = it.next();
+      if (conn.isClaimed()) {
+        it.remove();
+      } else if (filter.test(conn) && conn.tryClaim()) {
+        it.remove();
+        idleCount.decrementAndGet();
+        connections.add(conn);
+      }
+    }
+    return connections;
+  }
+
+  void addActive(PooledConnection conn) {
+    activeConnections.add(conn);
+  }
+
+  boolean removeActive(PooledConnection conn) {
+    return activeConnections.remove(conn);
+  }
+
+  /**
+   * Releases the active connection that has been checked out for the longest time, if that time exceeds the given
+   * limit. The caller takes over the active permit held by that connection.
+   *
+   * @param maximumCheckoutTime
+   *          the maximum checkout time in milliseconds
+   * @return the released connection, or null if no connection is overdue
+   */
+  PooledConnection claimOverdue(long maximumCheckoutTime) {
+    PooledConnection oldest = null;
+    for (PooledConnection conn : activeConnections) {
+      if (oldest == null || conn.getCheckoutTimestamp() < oldest.getCheckoutTimestamp()) {
+        oldest = conn;
+      }
+    }
+    if (oldest != null && oldest.getCheckoutTime() > maximumCheckoutTime && oldest.tryRelease()) {
+      activeConnections.remove(oldest);
+      return oldest;
+    }
+    return null;
+  }
+
+  /**
+   * Removes all idle and active connections from this bag.
+   *
+   * @return the removed connections
+   */
+  List<PooledConnection> drain() {
+    List<PooledConnection> connections = new ArrayList<>();
+    PooledConnection conn;
+    while ((conn = idleConnections.pollFirst()) != null) {
+      if (conn.tryClaim()) {
+        connections.add(conn);
+      }
+    }
+    for (Iterator<PooledConnection> it = activeConnections.iterator(); it.hasNext();) {
+      conn = it.next();
+      it.remove();
+      if (conn.tryRelease()) {
+        connections.add(conn);
+      }
+    }
+    idleCount.set(0);
+    return connections;
+  }
+
+  int getIdleCount() {
+    return Math.max(idleCount.get(), 0);
+  }
+
+  int getActiveCount() {
+    return activeConnections.size();
+  }
+
+}
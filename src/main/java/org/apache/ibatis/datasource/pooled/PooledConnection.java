@@ -19,7 +19,9 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -29,7 +31,12 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
+  private static final String PREPARE_STATEMENT = "prepareStatement";
+  private static final String PREPARE_CALL = "prepareCall";
   private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
+  private static final int IDLE = 0;
+  private static final int IN_USE = 1;
+  private static final int RELEASED = 2;
 
   private final int hashCode;
   private final PooledDataSource dataSource;
@@ -39,7 +46,9 @@ class PooledConnection implements InvocationHandler {
   private long createdTimestamp;
   private long lastUsedTimestamp;
   private int connectionTypeCode;
-  private boolean valid;
+  private volatile boolean valid;
+  private StatementCache statementCache;
+  private final AtomicInteger checkoutState = new AtomicInteger(IDLE);
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -66,6 +75,36 @@ class PooledConnection implements InvocationHandler {
     valid = false;
   }
 
+  /**
+   * Marks this connection as checked out. Used by the lock-free checkout mode, where more than one thread may try to
+   * take the same idle connection.
+   *
+   * @return True if the caller is the one that checked the connection out
+   */
+  boolean tryClaim() {
+    return checkoutState.compareAndSet(IDLE, IN_USE);
+  }
+
+  /**
+   * Tells whether this connection has left the idle state. A claimed connection never becomes idle again, as it is
+   * wrapped in a new PooledConnection when it is returned to the pool.
+   *
+   * @return True if the connection has been claimed
+   */
+  boolean isClaimed() {
+    return checkoutState.get() != IDLE;
+  }
+
+  /**
+   * Marks this checked out connection as released. Used by the lock-free checkout mode, where the owner returning the
+   * connection races with other threads claiming it as overdue.
+   *
+   * @return True if the caller is the one that released the connection
+   */
+  boolean tryRelease() {
+    return checkoutState.compareAndSet(IN_USE, RELEASED);
+  }
+
   /**
    * Method to see if the connection is usable.
    *
@@ -75,6 +114,16 @@ class PooledConnection implements InvocationHandler {
     return valid && realConnection != null && dataSource.pingConnection(this);
   }
 
+  /**
+   * Method to see if the connection is usable, without running the ping query if the housekeeper pings idle
+   * connections in the background.
+   *
+   * @return True if the connection is usable
+   */
+  boolean isUsable() {
+    return valid && realConnection != null && dataSource.isUsable(this);
+  }
+
   /**
    * Getter for the *real* connection that this wraps.
    *
@@ -205,6 +254,55 @@ class PooledConnection implements InvocationHandler {
     return System.currentTimeMillis() - checkoutTimestamp;
   }
 
+  /**
+   * Getter for the prepared statements cached for the real connection.
+   *
+   * @return the statement cache, or null if no statement has been cached yet
+   */
+  StatementCache getStatementCache() {
+    return statementCache;
+  }
+
+  /**
+   * Setter for the prepared statements cached for the real connection. Used to hand the cache over when the real
+   * connection is wrapped again.
+   *
+   * @param statementCache
+   *          the statement cache
+   */
+  void setStatementCache(StatementCache statementCache) {
+    this.statementCache = statementCache;
+  }
+
+  /**
+   * Prepares a statement and puts it in the statement cache, so that the first session that prepares the same SQL on
+   * this connection finds it already prepared.
+   *
+   * @param sql
+   *          the SQL to prepare
+   * @throws SQLException
+   *           if the statement could not be prepared
+   */
+  void warmUpStatement(String sql) throws SQLException {
+    StatementCache.Key key = new StatementCache.Key(PREPARE_STATEMENT, new Object[] { sql });
+    PooledStatement statement = new PooledStatement(this, key, realConnection.prepareStatement(sql));
+    if (!obtainStatementCache().offer(statement)) {
+      statement.closeRealStatement();
+    }
+  }
+
+  /**
+   * Puts a statement that has been closed by its user back in the statement cache.
+   *
+   * @param statement
+   *          the statement
+   * @return false if the statement was not cached and should be closed
+   */
+  boolean returnStatement(PooledStatement statement) {
+    StatementCache cache = statementCache;
+    return valid && cache != null && statement.reset() && cache.offer(statement);
+  }
+
   @Override
   public int hashCode() {
     return hashCode;
@@ -251,6 +349,10 @@ class PooledConnection implements InvocationHandler {
         // issue #579 toString() should never fail
         // throw an SQLException instead of a Runtime
         checkConnection();
+        if (dataSource.getPoolStatementCacheSize() > 0
+            && (PREPARE_STATEMENT.equals(methodName) || PREPARE_CALL.equals(methodName))) {
+          return prepareCachedStatement(method, args);
+        }
       }
       return method.invoke(realConnection, args);
     } catch (Throwable t) {
@@ -259,6 +361,24 @@ class PooledConnection implements InvocationHandler {
 
   }
 
+  private Object prepareCachedStatement(Method method, Object[] args) throws Exception {
+    StatementCache.Key key = new StatementCache.Key(method.getName(), args);
+    PooledStatement statement = obtainStatementCache().take(key);
+    if (statement != null) {
+      statement = statement.reopen(this);
+    } else {
+      statement = new PooledStatement(this, key, (PreparedStatement) method.invoke(realConnection, args));
+    }
+    return statement.getProxyStatement();
+  }
+
+  private StatementCache obtainStatementCache() {
+    if (statementCache == null) {
+      statementCache = new StatementCache(dataSource.getPoolStatementCacheSize());
+    }
+    return statementCache;
+  }
+
   private void checkConnection() throws SQLException {
     if (!valid) {
       throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
@@ -16,13 +16,23 @@
 package org.apache.ibatis.datasource.pooled;
 
 import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -53,8 +63,20 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
-
-  private int expectedConnectionTypeCode;
+  protected boolean poolLockFreeCheckout;
+  protected int poolMinimumIdleConnections;
+  protected int poolMaximumLifetime;
+  protected int poolIdleTimeout;
+  protected int poolHousekeepingInterval;
+  protected int poolStatementCacheSize;
+  protected List<String> poolWarmupStatements = Collections.emptyList();
+
+  private volatile int expectedConnectionTypeCode;
+  private volatile ConnectionBag connectionBag;
+  private ScheduledExecutorService housekeeper;
+  private ScheduledFuture<?> housekeeping;
+  // changed by forceCloseAll(), so that the housekeeper does not put back connections taken before
+  private volatile int generation;
 
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
@@ -254,6 +276,103 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * Determines if connections should be checked out without holding the pool lock. In this mode idle connections are
+   * kept in a concurrent bag with thread-local affinity, the maximum number of active connections is enforced by a
+   * semaphore, and new connections are opened and pinged outside of any shared lock.
+   *
+   * @param poolLockFreeCheckout
+   *          True if the lock-free checkout mode should be used
+   * @since 3.5.10
+   */
+  public void setPoolLockFreeCheckout(boolean poolLockFreeCheckout) {
+    this.poolLockFreeCheckout = poolLockFreeCheckout;
+    forceCloseAll();
+  }
+
+  /**
+   * The number of idle connections the housekeeper keeps open in advance, so that a burst of requests does not have to
+   * wait for new connections. Only takes effect when {@link #setPoolHousekeepingInterval(int)} is set.
+   *
+   * @param poolMinimumIdleConnections
+   *          The minimum number of idle connections
+   * @since 3.5.10
+   */
+  public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+    this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+    forceCloseAll();
+  }
+
+  /**
+   * The maximum time a connection may live. Older connections are closed when they are returned to the pool, and
+   * idle ones are closed by the housekeeper. 0 means no limit.
+   *
+   * @param milliseconds
+   *          the maximum lifetime in milliseconds
+   * @since 3.5.10
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+    forceCloseAll();
+  }
+
+  /**
+   * The time after which the housekeeper closes an idle connection, as long as more than
+   * {@link #setPoolMinimumIdleConnections(int)} connections are idle. 0 means idle connections are never closed.
+   *
+   * @param milliseconds
+   *          the idle timeout in milliseconds
+   * @since 3.5.10
+   */
+  public void setPoolIdleTimeout(int milliseconds) {
+    this.poolIdleTimeout = milliseconds;
+    forceCloseAll();
+  }
+
+  /**
+   * How often the background housekeeper runs. The housekeeper closes idle connections that exceeded the maximum
+   * lifetime or the idle timeout, runs the ping query on idle connections and opens connections up to the minimum
+   * number of idle connections. While it is enabled, the ping query is no longer run when a connection is checked
+   * out. 0 disables the housekeeper.
+   *
+   * @param milliseconds
+   *          the interval in milliseconds
+   * @since 3.5.10
+   */
+  public void setPoolHousekeepingInterval(int milliseconds) {
+    this.poolHousekeepingInterval = milliseconds;
+    forceCloseAll();
+  }
+
+  /**
+   * The number of prepared statements kept open for each physical connection. A statement that is closed is put back
+   * in the cache of its connection instead of being closed, so that the next session that prepares the same SQL on that
+   * connection reuses it. The least recently used statement is closed when the cache is full. 0 disables the cache.
+   *
+   * @param poolStatementCacheSize
+   *          the maximum number of cached statements per connection
+   * @since 3.5.10
+   */
+  public void setPoolStatementCacheSize(int poolStatementCacheSize) {
+    this.poolStatementCacheSize = poolStatementCacheSize;
+    forceCloseAll();
+  }
+
+  /**
+   * The SQL of statements that are prepared as soon as a physical connection is opened and put in its statement cache,
+   * so that frequently used statements are already prepared the first time they are executed. Only takes effect when
+   * {@link #setPoolStatementCacheSize(int)} is set. Statements that fail to prepare are skipped.
+   *
+   * @param poolWarmupStatements
+   *          the SQL of the statements to prepare
+   * @since 3.5.10
+   */
+  public void setPoolWarmupStatements(List<String> poolWarmupStatements) {
+    this.poolWarmupStatements = poolWarmupStatements == null ? Collections.emptyList()
+        : new ArrayList<>(poolWarmupStatements);
+    forceCloseAll();
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -324,11 +443,44 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  public boolean isPoolLockFreeCheckout() {
+    return poolLockFreeCheckout;
+  }
+
+  public int getPoolMinimumIdleConnections() {
+    return poolMinimumIdleConnections;
+  }
+
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  public int getPoolIdleTimeout() {
+    return poolIdleTimeout;
+  }
+
+  public int getPoolHousekeepingInterval() {
+    return poolHousekeepingInterval;
+  }
+
+  public int getPoolStatementCacheSize() {
+    return poolStatementCacheSize;
+  }
+
+  public List<String> getPoolWarmupStatements() {
+    return Collections.unmodifiableList(poolWarmupStatements);
+  }
+
   /**
    * Closes all active and idle connections in the pool.
    */
   public void forceCloseAll() {
+    closeAll(true);
+  }
+
+  private void closeAll(boolean keepHousekeeping) {
     synchronized (state) {
+      generation++;
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       for (int i = state.activeConnections.size(); i > 0; i--) {
         try {
@@ -358,6 +510,28 @@ public class PooledDataSource implements DataSource {
           // ignore
         }
       }
+      ConnectionBag oldBag = connectionBag;
+      connectionBag = poolLockFreeCheckout ? new ConnectionBag(poolMaximumActiveConnections, poolMaximumIdleConnections) : null;
+      if (oldBag != null) {
+        for (PooledConnection conn : oldBag.drain()) {
+          try {
+            conn.invalidate();
+
+            Connection realConn = conn.getRealConnection();
+            if (!realConn.getAutoCommit()) {
+              realConn.rollback();
+            }
+            realConn.close();
+          } catch (Exception e) {
+            // ignore
+          }
+        }
+      }
+      if (keepHousekeeping) {
+        scheduleHousekeeping();
+      } else {
+        stopHousekeeping();
+      }
     }
     if (log.isDebugEnabled()) {
       log.debug("PooledDataSource forcefully closed/removed all connections.");
@@ -368,17 +542,27 @@ public class PooledDataSource implements DataSource {
     return state;
   }
 
+  ConnectionBag getConnectionBag() {
+    return connectionBag;
+  }
+
   private int assembleConnectionTypeCode(String url, String username, String password) {
     return ("" + url + username + password).hashCode();
   }
 
   protected void pushConnection(PooledConnection conn) throws SQLException {
+    ConnectionBag bag = connectionBag;
+    if (bag != null) {
+      returnConnection(bag, conn);
+      return;
+    }
 
     synchronized (state) {
       state.activeConnections.remove(conn);
-      if (conn.isValid()) {
-        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
+      if (conn.isUsable()) {
+        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode
+            && !isExpired(conn)) {
+          state.accumulatedCheckoutTime.add(conn.getCheckoutTime());
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
@@ -386,13 +570,14 @@ public class PooledDataSource implements DataSource {
           state.idleConnections.add(newConn);
           newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
           newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          newConn.setStatementCache(conn.getStatementCache());
           conn.invalidate();
           if (log.isDebugEnabled()) {
             log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
           }
           state.notifyAll();
         } else {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
+          state.accumulatedCheckoutTime.add(conn.getCheckoutTime());
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
@@ -406,12 +591,17 @@ public class PooledDataSource implements DataSource {
         if (log.isDebugEnabled()) {
           log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
         }
-        state.badConnectionCount++;
+        state.badConnectionCount.increment();
       }
     }
   }
 
   private PooledConnection popConnection(String username, String password) throws SQLException {
+    ConnectionBag bag = connectionBag;
+    if (bag != null) {
+      return borrowConnection(bag, username, password);
+    }
+
     boolean countedWait = false;
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
@@ -429,7 +619,7 @@ public class PooledDataSource implements DataSource {
           // Pool does not have available connection
           if (state.activeConnections.size() < poolMaximumActiveConnections) {
             // Can create new connection
-            conn = new PooledConnection(dataSource.getConnection(), this);
+            conn = openConnection();
             if (log.isDebugEnabled()) {
               log.debug("Created connection " + conn.getRealHashCode() + ".");
             }
@@ -439,9 +629,9 @@ public class PooledDataSource implements DataSource {
             long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
             if (longestCheckoutTime > poolMaximumCheckoutTime) {
               // Can claim overdue connection
-              state.claimedOverdueConnectionCount++;
-              state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
-              state.accumulatedCheckoutTime += longestCheckoutTime;
+              state.claimedOverdueConnectionCount.increment();
+              state.accumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+              state.accumulatedCheckoutTime.add(longestCheckoutTime);
               state.activeConnections.remove(oldestActiveConnection);
               if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
                 try {
@@ -461,6 +651,7 @@ public class PooledDataSource implements DataSource {
               conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
               conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
               conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+              conn.setStatementCache(oldestActiveConnection.getStatementCache());
               oldestActiveConnection.invalidate();
               if (log.isDebugEnabled()) {
                 log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
@@ -469,7 +660,7 @@ public class PooledDataSource implements DataSource {
               // Must wait
               try {
                 if (!countedWait) {
-                  state.hadToWaitCount++;
+                  state.hadToWaitCount.increment();
                   countedWait = true;
                 }
                 if (log.isDebugEnabled()) {
@@ -477,7 +668,7 @@ public class PooledDataSource implements DataSource {
                 }
                 long wt = System.currentTimeMillis();
                 state.wait(poolTimeToWait);
-                state.accumulatedWaitTime += System.currentTimeMillis() - wt;
+                state.accumulatedWaitTime.add(System.currentTimeMillis() - wt);
               } catch (InterruptedException e) {
                 // set interrupt flag
                 Thread.currentThread().interrupt();
@@ -488,7 +679,7 @@ public class PooledDataSource implements DataSource {
         }
         if (conn != null) {
           // ping to server and check the connection is valid or not
-          if (conn.isValid()) {
+          if (conn.isUsable()) {
             if (!conn.getRealConnection().getAutoCommit()) {
               conn.getRealConnection().rollback();
             }
@@ -496,13 +687,13 @@ public class PooledDataSource implements DataSource {
             conn.setCheckoutTimestamp(System.currentTimeMillis());
             conn.setLastUsedTimestamp(System.currentTimeMillis());
             state.activeConnections.add(conn);
-            state.requestCount++;
-            state.accumulatedRequestTime += System.currentTimeMillis() - t;
+            state.requestCount.increment();
+            state.accumulatedRequestTime.add(System.currentTimeMillis() - t);
           } else {
             if (log.isDebugEnabled()) {
               log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
             }
-            state.badConnectionCount++;
+            state.badConnectionCount.increment();
             localBadConnectionCount++;
             conn = null;
             if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
@@ -527,6 +718,163 @@ public class PooledDataSource implements DataSource {
     return conn;
   }
 
+  private PooledConnection borrowConnection(ConnectionBag bag, String username, String password) throws SQLException {
+    boolean countedWait = false;
+    PooledConnection conn = null;
+    long t = System.currentTimeMillis();
+    int localBadConnectionCount = 0;
+
+    // Acquire an active slot, either a free permit or the one held by an overdue connection
+    while (!bag.tryAcquirePermit()) {
+      PooledConnection overdueConnection = bag.claimOverdue(poolMaximumCheckoutTime);
+      if (overdueConnection != null) {
+        long longestCheckoutTime = overdueConnection.getCheckoutTime();
+        state.claimedOverdueConnectionCount.increment();
+        state.accumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+        state.accumulatedCheckoutTime.add(longestCheckoutTime);
+        if (!overdueConnection.getRealConnection().getAutoCommit()) {
+          try {
+            overdueConnection.getRealConnection().rollback();
+          } catch (SQLException e) {
+            // see popConnection
+            log.debug("Bad connection. Could not roll back");
+          }
+        }
+        conn = new PooledConnection(overdueConnection.getRealConnection(), this);
+        conn.setCreatedTimestamp(overdueConnection.getCreatedTimestamp());
+        conn.setLastUsedTimestamp(overdueConnection.getLastUsedTimestamp());
+        conn.setStatementCache(overdueConnection.getStatementCache());
+        conn.tryClaim();
+        overdueConnection.invalidate();
+        if (log.isDebugEnabled()) {
+          log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+        }
+        break;
+      }
+      try {
+        if (!countedWait) {
+          state.hadToWaitCount.increment();
+          countedWait = true;
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+        }
+        long wt = System.currentTimeMillis();
+        boolean acquired = bag.tryAcquirePermit(poolTimeToWait);
+        state.accumulatedWaitTime.add(System.currentTimeMillis() - wt);
+        if (acquired) {
+          break;
+        }
+      } catch (InterruptedException e) {
+        // set interrupt flag
+        Thread.currentThread().interrupt();
+        if (log.isDebugEnabled()) {
+          log.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+        }
+        throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+      }
+    }
+
+    // The permit is held from here on, so nothing below needs to synchronize with other threads
+    boolean checkedOut = false;
+    try {
+      while (!checkedOut) {
+        if (conn == null) {
+          conn = bag.pollIdle();
+          if (conn != null) {
+            if (log.isDebugEnabled()) {
+              log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+            }
+          } else {
+            conn = openConnection();
+            conn.tryClaim();
+            if (log.isDebugEnabled()) {
+              log.debug("Created connection " + conn.getRealHashCode() + ".");
+            }
+          }
+        }
+        // ping to server and check the connection is valid or not
+        if (conn.isUsable()) {
+          if (!conn.getRealConnection().getAutoCommit()) {
+            conn.getRealConnection().rollback();
+          }
+          conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+          conn.setCheckoutTimestamp(System.currentTimeMillis());
+          conn.setLastUsedTimestamp(System.currentTimeMillis());
+          bag.addActive(conn);
+          state.requestCount.increment();
+          state.accumulatedRequestTime.add(System.currentTimeMillis() - t);
+          checkedOut = true;
+        } else {
+          if (log.isDebugEnabled()) {
+            log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+          }
+          state.badConnectionCount.increment();
+          localBadConnectionCount++;
+          conn = null;
+          if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+            if (log.isDebugEnabled()) {
+              log.debug("PooledDataSource: Could not get a good connection to the database.");
+            }
+            throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+          }
+        }
+      }
+    } finally {
+      if (!checkedOut) {
+        bag.releasePermit();
+      }
+    }
+    return conn;
+  }
+
+  private void returnConnection(ConnectionBag bag, PooledConnection conn) throws SQLException {
+    if (!conn.tryRelease()) {
+      // already claimed as overdue or removed by forceCloseAll()
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnectionCount.increment();
+      return;
+    }
+    boolean ownedByBag = bag.removeActive(conn);
+    try {
+      if (conn.isUsable()) {
+        state.accumulatedCheckoutTime.add(conn.getCheckoutTime());
+        if (!conn.getRealConnection().getAutoCommit()) {
+          conn.getRealConnection().rollback();
+        }
+        if (ownedByBag && conn.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(conn)) {
+          PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+          newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+          newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          newConn.setStatementCache(conn.getStatementCache());
+          conn.invalidate();
+          if (bag.offerIdle(newConn, true)) {
+            if (log.isDebugEnabled()) {
+              log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
+            }
+            return;
+          }
+        }
+        conn.getRealConnection().close();
+        if (log.isDebugEnabled()) {
+          log.debug("Closed connection " + conn.getRealHashCode() + ".");
+        }
+        conn.invalidate();
+      } else {
+        if (log.isDebugEnabled()) {
+          log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+        }
+        state.badConnectionCount.increment();
+      }
+    } finally {
+      if (ownedByBag) {
+        bag.releasePermit();
+      }
+    }
+  }
+
   /**
    * Method to check to see if a connection is still usable
    *
@@ -535,6 +883,15 @@ public class PooledDataSource implements DataSource {
    * @return True if the connection is still usable
    */
   protected boolean pingConnection(PooledConnection conn) {
+    return pingConnection(conn, true);
+  }
+
+  boolean isUsable(PooledConnection conn) {
+    // the housekeeper pings idle connections in the background
+    return poolHousekeepingInterval > 0 ? pingConnection(conn, false) : pingConnection(conn);
+  }
+
+  private boolean pingConnection(PooledConnection conn, boolean runPingQuery) {
     boolean result = true;
 
     try {
@@ -546,8 +903,7 @@ public class PooledDataSource implements DataSource {
       result = false;
     }
 
-    if (result && poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
-        && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+    if (result && runPingQuery && isPingRequired(conn)) {
       try {
         if (log.isDebugEnabled()) {
           log.debug("Testing connection " + conn.getRealHashCode() + " ...");
@@ -579,6 +935,171 @@ public class PooledDataSource implements DataSource {
     return result;
   }
 
+  private boolean isPingRequired(PooledConnection conn) {
+    return poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
+        && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor;
+  }
+
+  private boolean isExpired(PooledConnection conn) {
+    return poolMaximumLifetime > 0 && conn.getAge() > poolMaximumLifetime;
+  }
+
+  private boolean isIdleTimedOut(PooledConnection conn) {
+    return poolIdleTimeout > 0 && conn.getTimeElapsedSinceLastUse() > poolIdleTimeout;
+  }
+
+  private void scheduleHousekeeping() {
+    if (poolHousekeepingInterval <= 0) {
+      stopHousekeeping();
+      return;
+    }
+    if (housekeeping != null) {
+      housekeeping.cancel(false);
+    }
+    if (housekeeper == null) {
+      housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mybatis-pool-housekeeper");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    housekeeping = housekeeper.scheduleWithFixedDelay(new Housekeeper(this, housekeeper), poolHousekeepingInterval,
+        poolHousekeepingInterval, TimeUnit.MILLISECONDS);
+  }
+
+  private void stopHousekeeping() {
+    if (housekeeping != null) {
+      housekeeping.cancel(false);
+      housekeeping = null;
+    }
+    if (housekeeper != null) {
+      housekeeper.shutdown();
+      housekeeper = null;
+    }
+  }
+
+  /**
+   * Closes idle connections that exceeded the maximum lifetime or the idle timeout, pings the idle connections that
+   * need it and opens connections up to the minimum number of idle connections. Runs on the housekeeper thread.
+   */
+  void housekeep() {
+    final int generation = this.generation;
+    List<PooledConnection> candidates = takeIdleConnections(
+        conn -> isExpired(conn) || isIdleTimedOut(conn) || isPingRequired(conn));
+    int idleCount = state.getIdleConnectionCount() + candidates.size();
+    for (PooledConnection conn : candidates) {
+      if (isExpired(conn) || (isIdleTimedOut(conn) && idleCount > poolMinimumIdleConnections)) {
+        if (log.isDebugEnabled()) {
+          log.debug("Retiring idle connection " + conn.getRealHashCode() + ".");
+        }
+        closeConnection(conn);
+        idleCount--;
+      } else if (!pingConnection(conn, true)) {
+        if (log.isDebugEnabled()) {
+          log.debug("A bad connection (" + conn.getRealHashCode() + ") was found in the pool, discarding connection.");
+        }
+        state.badConnectionCount.increment();
+        conn.invalidate();
+        idleCount--;
+      } else {
+        PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+        newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+        newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+        newConn.setStatementCache(conn.getStatementCache());
+        conn.invalidate();
+        if (!addIdleConnection(newConn, generation)) {
+          closeConnection(newConn);
+        }
+      }
+    }
+    while (getMissingIdleConnectionCount() > 0) {
+      PooledConnection conn;
+      try {
+        conn = openConnection();
+      } catch (SQLException e) {
+        log.warn("Could not open an idle connection: " + e.getMessage());
+        return;
+      }
+      if (!addIdleConnection(conn, generation)) {
+        closeConnection(conn);
+        return;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Created idle connection " + conn.getRealHashCode() + ".");
+      }
+    }
+  }
+
+  private List<PooledConnection> takeIdleConnections(Predicate<PooledConnection> filter) {
+    ConnectionBag bag = connectionBag;
+    if (bag != null) {
+      return bag.claimIdle(filter);
+    }
+    List<PooledConnection> connections = new ArrayList<>();
+    synchronized (state) {
+      for (Iterator<PooledConnection> it = state.idleConnections.iterator(); it.hasNext();) {
+        PooledConnection conn = it.next();
+        if (filter.test(conn)) {
+          it.remove();
+          connections.add(conn);
+        }
+      }
+    }
+    return connections;
+  }
+
+  private boolean addIdleConnection(PooledConnection conn, int generation) {
+    synchronized (state) {
+      if (generation != this.generation) {
+        // the pool has been closed since the connection was taken or opened
+        return false;
+      }
+      ConnectionBag bag = connectionBag;
+      if (bag != null) {
+        return bag.offerIdle(conn, false);
+      }
+      if (state.idleConnections.size() >= poolMaximumIdleConnections) {
+        return false;
+      }
+      state.idleConnections.add(conn);
+      state.notifyAll();
+      return true;
+    }
+  }
+
+  private int getMissingIdleConnectionCount() {
+    int idle = state.getIdleConnectionCount();
+    int total = idle + state.getActiveConnectionCount();
+    return Math.min(poolMinimumIdleConnections - idle, poolMaximumActiveConnections - total);
+  }
+
+  private PooledConnection openConnection() throws SQLException {
+    PooledConnection conn = new PooledConnection(dataSource.getConnection(), this);
+    if (poolStatementCacheSize > 0) {
+      for (String sql : poolWarmupStatements) {
+        try {
+          conn.warmUpStatement(sql);
+        } catch (SQLException e) {
+          log.warn("Could not prepare warm up statement '" + sql + "': " + e.getMessage());
+        }
+      }
+    }
+    return conn;
+  }
+
+  private void closeConnection(PooledConnection conn) {
+    conn.invalidate();
+    try {
+      Connection realConn = conn.getRealConnection();
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
   /**
    * Unwraps a pooled connection to get to the 'real' connection
    *
@@ -598,7 +1119,7 @@ public class PooledDataSource implements DataSource {
 
   @Override
   protected void finalize() throws Throwable {
-    forceCloseAll();
+    closeAll(false);
     super.finalize();
   }
 
@@ -617,4 +1138,34 @@ public class PooledDataSource implements DataSource {
     return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
   }
 
+  /**
+   * Runs {@link PooledDataSource#housekeep()}. The data source is only weakly referenced, so that an abandoned pool can
+   * still be garbage collected, in which case the housekeeper thread is stopped.
+   */
+  private static class Housekeeper implements Runnable {
+
+    private final WeakReference<PooledDataSource> dataSource;
+    private final ScheduledExecutorService executor;
+
+    Housekeeper(PooledDataSource dataSource, ScheduledExecutorService executor) {
+      this.dataSource = new WeakReference<>(dataSource);
+      this.executor = executor;
+    }
+
+    @Override
+    public void run() {
+      PooledDataSource ds = dataSource.get();
+      if (ds == null) {
+        executor.shutdown();
+        return;
+      }
+      try {
+        ds.housekeep();
+      } catch (Exception e) {
+        log.warn("PooledDataSource housekeeping failed. Cause: " + e);
+      }
+    }
+
+  }
+
 }
@@ -0,0 +1,236 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A prepared statement handed out by a {@link PooledConnection} whose statements are cached. Closing it puts the real
+ * statement back in the {@link StatementCache} of the connection instead of closing it.
+ * <p>
+ * Before the real statement is cached its open results, parameters and pending batch are cleared, and the properties
+ * that were changed while it was in use, such as the query timeout or the fetch size, are set back to their original
+ * values. A statement whose properties cannot be read back, such as the escape processing, is closed instead.
+ */
+class PooledStatement implements InvocationHandler {
+
+  private static final String CLOSE = "close";
+  private static final String IS_CLOSED = "isClosed";
+  private static final String GET_CONNECTION = "getConnection";
+  private static final String ADD_BATCH = "addBatch";
+  private static final String EXECUTE = "execute";
+  private static final Map<String, String> PROPERTY_GETTERS = new HashMap<>();
+  private static final Set<String> UNRESTORABLE_SETTERS = new HashSet<>(
+      Arrays.asList("setEscapeProcessing", "setCursorName"));
+  private static final Class<?>[] PREPARED_IFACES = new Class<?>[] { PreparedStatement.class };
+  private static final Class<?>[] CALLABLE_IFACES = new Class<?>[] { CallableStatement.class };
+
+  static {
+    PROPERTY_GETTERS.put("setQueryTimeout", "getQueryTimeout");
+    PROPERTY_GETTERS.put("setFetchSize", "getFetchSize");
+    PROPERTY_GETTERS.put("setFetchDirection", "getFetchDirection");
+    PROPERTY_GETTERS.put("setMaxRows", "getMaxRows");
+    PROPERTY_GETTERS.put("setLargeMaxRows", "getLargeMaxRows");
+    PROPERTY_GETTERS.put("setMaxFieldSize", "getMaxFieldSize");
+    PROPERTY_GETTERS.put("setPoolable", "isPoolable");
+  }
+
+  private final PooledConnection connection;
+  private final StatementCache.Key key;
+  private final PreparedStatement realStatement;
+  private final Map<Method, Object> originalProperties;
+  private final PreparedStatement proxyStatement;
+  private boolean closed;
+  private boolean executed;
+  private ResultSet lastResultSet;
+  private boolean batched;
+  private boolean propertiesChanged;
+  private boolean restorable = true;
+
+  PooledStatement(PooledConnection connection, StatementCache.Key key, PreparedStatement realStatement) {
+    this(connection, key, realStatement, new LinkedHashMap<>());
+  }
+
+  private PooledStatement(PooledConnection connection, StatementCache.Key key, PreparedStatement realStatement,
+      Map<Method, Object> originalProperties) {
+    this.connection = connection;
+    this.key = key;
+    this.realStatement = realStatement;
+    this.originalProperties = originalProperties;
+    Class<?>[] ifaces = realStatement instanceof CallableStatement ? CALLABLE_IFACES : PREPARED_IFACES;
+    this.proxyStatement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), ifaces,
+        this);
+  }
+
+  /**
+   * Hands out the cached real statement again.
+   *
+   * @param connection
+   *          the connection that hands it out
+   * @return a new open statement that wraps the same real statement
+   */
+  PooledStatement reopen(PooledConnection connection) {
+    return new PooledStatement(connection, key, realStatement, originalProperties);
+  }
+
+  StatementCache.Key getKey() {
+    return key;
+  }
+
+  PreparedStatement getProxyStatement() {
+    return proxyStatement;
+  }
+
+  /**
+   * Prepares the real statement to be used by another session.
+   *
+   * @return false if the statement could not be reset and should not be cached
+   */
+  boolean reset() {
+    if (!restorable) {
+      return false;
+    }
+    try {
+      if (executed) {
+        closeResults();
+      }
+      realStatement.clearParameters();
+      if (batched) {
+        realStatement.clearBatch();
+      }
+      if (propertiesChanged) {
+        // in reverse order, so that a property like the max rows, set by two setters, ends with its first value
+        List<Map.Entry<Method, Object>> properties = new ArrayList<>(originalProperties.entrySet());
+        Collections.reverse(properties);
+        for (Map.Entry<Method, Object> property : properties) {
+          property.getKey().invoke(realStatement, property.getValue());
+        }
+      }
+      realStatement.clearWarnings();
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  void closeRealStatement() {
+    try {
+      realStatement.close();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    String methodName = method.getName();
+    if (CLOSE.equals(methodName)) {
+      close();
+      return null;
+    }
+    if (IS_CLOSED.equals(methodName)) {
+      return closed || realStatement.isClosed();
+    }
+    try {
+      if (!Object.class.equals(method.getDeclaringClass())) {
+        checkStatement();
+        if (GET_CONNECTION.equals(methodName)) {
+          return connection.getProxyConnection();
+        } else if (methodName.startsWith(EXECUTE)) {
+          executed = true;
+        } else if (ADD_BATCH.equals(methodName)) {
+          batched = true;
+        } else if (PROPERTY_GETTERS.containsKey(methodName)) {
+          rememberOriginalProperty(method);
+        } else if (UNRESTORABLE_SETTERS.contains(methodName)) {
+          restorable = false;
+        }
+      }
+      Object result = method.invoke(realStatement, args);
+      if (result instanceof ResultSet) {
+        lastResultSet = (ResultSet) result;
+      }
+      return result;
+    } catch (Throwable t) {
+      throw ExceptionUtil.unwrapThrowable(t);
+    }
+  }
+
+  private void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (!connection.returnStatement(this)) {
+      closeRealStatement();
+    }
+  }
+
+  private void closeResults() throws SQLException {
+    // some drivers do not return the result set of executeQuery as the current one
+    if (lastResultSet != null) {
+      lastResultSet.close();
+      lastResultSet = null;
+    }
+    ResultSet rs = realStatement.getResultSet();
+    if (rs != null) {
+      rs.close();
+    }
+    // skips the remaining results, the next one closes the current result set
+    while (realStatement.getMoreResults() || realStatement.getUpdateCount() != -1) {
+      // nothing to do
+    }
+  }
+
+  private void rememberOriginalProperty(Method setter) {
+    if (!originalProperties.containsKey(setter)) {
+      try {
+        Method getter = Statement.class.getMethod(PROPERTY_GETTERS.get(setter.getName()));
+        originalProperties.put(setter, getter.invoke(realStatement));
+      } catch (Exception e) {
+        // the driver cannot tell the original value, the statement will not be cached
+        restorable = false;
+        return;
+      }
+    }
+    propertiesChanged = true;
+  }
+
+  private void checkStatement() throws SQLException {
+    if (closed) {
+      throw new SQLException("Error accessing PooledStatement. Statement is closed.");
+    }
+  }
+
+}
@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the prepared statements of a physical connection open after they are closed, so that the next session that
+ * prepares the same SQL on that connection reuses them.
+ * <p>
+ * Only statements that are not in use are held: a statement is taken out of the cache while it is in use and put back
+ * when it is closed. The cache holds at most one statement per SQL and closes the least recently used one when it is
+ * full. It moves along with the physical connection each time the connection is returned to the pool, and its
+ * statements are closed with the physical connection when the pool discards it.
+ */
+class StatementCache {
+
+  private final Map<Key, PooledStatement> statements;
+
+  StatementCache(int size) {
+    this.statements = new LinkedHashMap<Key, PooledStatement>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, PooledStatement> eldest) {
+        if (size() > size) {
+          eldest.getValue().closeRealStatement();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Takes the cached statement prepared by the given method and arguments.
+   *
+   * @param key
+   *          the key of the statement
+   * @return the statement, or null if there is none
+   */
+  synchronized PooledStatement take(Key key) {
+    return statements.remove(key);
+  }
+
+  /**
+   * Puts a statement that is no longer in use in the cache.
+   *
+   * @param statement
+   *          the statement
+   * @return false if a statement with the same key is already cached
+   */
+  synchronized boolean offer(PooledStatement statement) {
+    return statements.putIfAbsent(statement.getKey(), statement) == null;
+  }
+
+  /**
+   * Identifies a statement by the connection method that prepared it and the arguments it was called with.
+   */
+  static final class Key {
+
+    private final String methodName;
+    private final Object[] args;
+    private final int hashCode;
+
+    Key(String methodName, Object[] args) {
+      this.methodName = methodName;
+      this.args = args;
+      this.hashCode = 31 * methodName.hashCode() + Arrays.deepHashCode(args);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return hashCode == other.hashCode && methodName.equals(other.methodName) && Arrays.deepEquals(args, other.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return methodName + Arrays.deepToString(args);
+    }
+
+  }
+
+}
@@ -132,6 +132,9 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
+    if (!isLocalCacheRequired(ms, boundSql)) {
+      return queryWithoutLocalCache(ms, parameter, rowBounds, resultHandler, boundSql);
+    }
     CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
     return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
   }
@@ -139,6 +142,9 @@ public abstract class BaseExecutor implements Executor {
   @SuppressWarnings("unchecked")
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
+    if (!isLocalCacheRequired(ms, boundSql)) {
+      return queryWithoutLocalCache(ms, parameter, rowBounds, resultHandler, boundSql);
+    }
     ErrorContext.instance().resource(ms.getResource()).activity("executing a query").object(ms.getId());
     if (closed) {
       throw new ExecutorException("Executor was closed.");
@@ -196,12 +202,12 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
-    CacheKey cacheKey = new CacheKey();
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    CacheKey cacheKey = new CacheKey(parameterMappings.size() + 5);
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
     cacheKey.update(boundSql.getSql());
-    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
     // mimic DefaultParameterHandler logic
     for (ParameterMapping parameterMapping : parameterMappings) {
@@ -318,6 +324,39 @@ public abstract class BaseExecutor implements Executor {
     }
   }
 
+  /**
+   * A top level query of a statement scoped local cache finds the cache empty and clears it when done. Unless it runs
+   * nested queries, which use the cache to detect circular references and defer their loads, nothing is ever read from
+   * the cache, so both the cache and the cache key can be skipped.
+   */
+  private boolean isLocalCacheRequired(MappedStatement ms, BoundSql boundSql) {
+    if (queryStack > 0 || configuration.getLocalCacheScope() != LocalCacheScope.STATEMENT || ms.hasNestedQueries()) {
+      return true;
+    }
+    if (ms.getStatementType() == StatementType.CALLABLE) {
+      for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+        if (parameterMapping.getResultMapId() != null) {
+          // cursor output parameters are mapped with result maps that may run nested queries
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private <E> List<E> queryWithoutLocalCache(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+    ErrorContext.instance().resource(ms.getResource()).activity("executing a query").object(ms.getId());
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    try {
+      queryStack++;
+      return doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+    } finally {
+      queryStack--;
+    }
+  }
+
   private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
     List<E> list;
     localCache.putObject(key, EXECUTION_PLACEHOLDER);
@@ -17,19 +17,36 @@ package org.apache.ibatis.executor;
 
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.jdbc.ConnectionLogger;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -44,37 +61,81 @@ public class BatchExecutor extends BaseExecutor {
 
   private final List<Statement> statementList = new ArrayList<>();
   private final List<BatchResult> batchResultList = new ArrayList<>();
+  private final Map<BatchKey, Integer> openBatches = new HashMap<>();
+  private final List<Long> batchByteSizeList = new ArrayList<>();
+  private final List<MultiRowInsert> multiRowInsertList = new ArrayList<>();
+  private final List<Lane> batchLaneList = new ArrayList<>();
+  private final List<BatchResult> flushedResults = new ArrayList<>();
+  private final List<Lane> lanes = new ArrayList<>();
+  private final List<ParallelFlush> parallelFlushes = new ArrayList<>();
+  private int laneCount;
+  private int nextLane;
   private String currentSql;
   private MappedStatement currentStatement;
+  private BatchResultHandler batchResultHandler;
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
   }
 
+  @Override
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    this.batchResultHandler = batchResultHandler;
+  }
+
   @Override
   public int doUpdate(MappedStatement ms, Object parameterObject) throws SQLException {
     final Configuration configuration = ms.getConfiguration();
+    if (!lanes.isEmpty() && !canExecuteInParallel(ms)) {
+      // keys are selected before the insert on the connection of the session, which must not be in use by its lane
+      lanes.get(0).inFlight.join();
+    }
     final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
     final Statement stmt;
-    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
-      applyTransactionTimeout(stmt);
-      handler.parameterize(stmt);// fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
+    int index = findOpenBatch(ms, sql);
+    if (index >= 0) {
+      stmt = statementList.get(index);
+      MultiRowInsert multiRowInsert = multiRowInsertList.get(index);
+      if (multiRowInsert != null) {
+        multiRowInsert.addRow(configuration, boundSql, parameterObject);
+      } else {
+        applyTransactionTimeout(stmt);
+        handler.parameterize(stmt);// fix Issues 322
+      }
+      BatchResult batchResult = batchResultList.get(index);
       batchResult.addParameterObject(parameterObject);
     } else {
-      Connection connection = getConnection(ms.getStatementLog());
-      stmt = handler.prepare(connection, transaction.getTimeout());
-      handler.parameterize(stmt);    // fix Issues 322
+      Lane lane = nextLane();
+      MultiRowInsert multiRowInsert = createMultiRowInsert(ms, sql, handler);
+      if (multiRowInsert != null) {
+        // the rows are sent when the batch is executed
+        stmt = null;
+        multiRowInsert.addRow(configuration, boundSql, parameterObject);
+      } else {
+        Connection connection = lane != null ? lane.getConnection(ms.getStatementLog()) : getConnection(ms.getStatementLog());
+        stmt = handler.prepare(connection, transaction.getTimeout());
+        handler.parameterize(stmt);    // fix Issues 322
+      }
       currentSql = sql;
       currentStatement = ms;
+      if (configuration.isGroupBatchStatements()) {
+        openBatches.put(new BatchKey(ms, sql), statementList.size());
+      }
+      index = statementList.size();
       statementList.add(stmt);
+      multiRowInsertList.add(multiRowInsert);
+      batchLaneList.add(lane);
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      batchByteSizeList.add(0L);
+    }
+    if (stmt != null) {
+      handler.batch(stmt);
+    }
+    if (isBatchFull(ms, index, boundSql, parameterObject)) {
+      flushBatches(flushedResults, false);
     }
-    handler.batch(stmt);
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
@@ -111,54 +172,469 @@ public class BatchExecutor extends BaseExecutor {
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      List<BatchResult> results = new ArrayList<>();
       if (isRollback) {
+        discardParallelFlushes();
         return Collections.emptyList();
       }
-      for (int i = 0, n = statementList.size(); i < n; i++) {
-        Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
-        BatchResult batchResult = batchResultList.get(i);
-        try {
-          batchResult.setUpdateCounts(stmt.executeBatch());
-          MappedStatement ms = batchResult.getMappedStatement();
-          List<Object> parameterObjects = batchResult.getParameterObjects();
-          KeyGenerator keyGenerator = ms.getKeyGenerator();
-          if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-            Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-            jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-          } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-            for (Object parameter : parameterObjects) {
-              keyGenerator.processAfter(this, ms, stmt, parameter);
-            }
+      List<BatchResult> results = new ArrayList<>(flushedResults);
+      flushBatches(results, true);
+      return results;
+    } finally {
+      closeBatches();
+      flushedResults.clear();
+    }
+  }
+
+  @Override
+  public void close(boolean forceRollback) {
+    try {
+      super.close(forceRollback);
+    } finally {
+      for (Lane lane : lanes) {
+        lane.inFlight.join();
+        if (lane.transaction != null) {
+          try {
+            lane.transaction.close();
+          } catch (SQLException e) {
+            // Ignore. There's nothing that can be done at this point.
           }
-          // Close statement to close cursor #1109
+        }
+      }
+      lanes.clear();
+    }
+  }
+
+  private void flushBatches(List<BatchResult> results, boolean wait) throws SQLException {
+    if (laneCount > 1 && canExecuteInParallel()) {
+      submitBatches();
+      collectParallelFlushes(results, wait);
+    } else {
+      try {
+        collectParallelFlushes(results, true);
+        executeBatches(results);
+      } finally {
+        closeBatches();
+      }
+    }
+  }
+
+  private void executeBatches(List<BatchResult> results) throws SQLException {
+    for (int i = 0, n = statementList.size(); i < n; i++) {
+      BatchResult batchResult = batchResultList.get(i);
+      try {
+        executeBatch(batchResult, statementList.get(i), multiRowInsertList.get(i), batchLaneList.get(i));
+      } catch (BatchUpdateException e) {
+        StringBuilder message = new StringBuilder();
+        message.append(batchResult.getMappedStatement().getId())
+            .append(" (batch index #")
+            .append(i + 1)
+            .append(")")
+            .append(" failed.");
+        if (i > 0) {
+          message.append(" ")
+              .append(i)
+              .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+        }
+        throw new BatchExecutorException(message.toString(), e, results, batchResult);
+      }
+      handOver(batchResult, results);
+    }
+  }
+
+  private void executeBatch(BatchResult batchResult, Statement stmt, MultiRowInsert multiRowInsert, Lane lane) throws SQLException {
+    MappedStatement ms = batchResult.getMappedStatement();
+    if (multiRowInsert != null) {
+      Connection connection = lane != null ? lane.getConnection(ms.getStatementLog()) : getConnection(ms.getStatementLog());
+      batchResult.setUpdateCounts(executeMultiRowInsert(batchResult, multiRowInsert, connection));
+      return;
+    }
+    applyTransactionTimeout(stmt);
+    batchResult.setUpdateCounts(stmt.executeBatch());
+    List<Object> parameterObjects = batchResult.getParameterObjects();
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+      Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+      jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+    } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+      for (Object parameter : parameterObjects) {
+        keyGenerator.processAfter(this, ms, stmt, parameter);
+      }
+    }
+    // Close statement to close cursor #1109
+    closeStatement(stmt);
+  }
+
+  private void handOver(BatchResult batchResult, List<BatchResult> results) {
+    if (batchResultHandler != null) {
+      // handed over as soon as executed so that results do not pile up during bulk loads
+      batchResultHandler.handleBatchResult(batchResult);
+    } else {
+      results.add(batchResult);
+    }
+  }
+
+  private void closeBatches() {
+    for (Statement stmt : statementList) {
+      closeStatement(stmt);
+    }
+    clearBatches();
+  }
+
+  private void clearBatches() {
+    currentSql = null;
+    statementList.clear();
+    batchResultList.clear();
+    openBatches.clear();
+    batchByteSizeList.clear();
+    multiRowInsertList.clear();
+    batchLaneList.clear();
+  }
+
+  private Lane nextLane() throws SQLException {
+    if (laneCount == 0) {
+      Integer batchConnections = configuration.getBatchConnections();
+      boolean parallel = batchConnections != null && batchConnections > 1 && configuration.getEnvironment() != null
+          && transaction.getConnection().getAutoCommit();
+      laneCount = parallel ? batchConnections : 1;
+    }
+    if (laneCount == 1) {
+      return null;
+    }
+    int laneIndex = nextLane++ % laneCount;
+    if (laneIndex == lanes.size()) {
+      if (laneIndex == 0) {
+        lanes.add(new Lane(null, transaction.getConnection()));
+      } else {
+        Environment environment = configuration.getEnvironment();
+        Transaction laneTransaction = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, true);
+        lanes.add(new Lane(laneTransaction, laneTransaction.getConnection()));
+      }
+    }
+    Lane lane = lanes.get(laneIndex);
+    // a connection must not be used by two threads at once
+    lane.inFlight.join();
+    return lane;
+  }
+
+  private boolean canExecuteInParallel() {
+    // keys selected after each row are selected through this executor, which only the session thread may use
+    for (BatchResult batchResult : batchResultList) {
+      if (!canExecuteInParallel(batchResult.getMappedStatement())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean canExecuteInParallel(MappedStatement ms) {
+    Class<?> keyGeneratorType = ms.getKeyGenerator().getClass();
+    return Jdbc3KeyGenerator.class.equals(keyGeneratorType) || NoKeyGenerator.class.equals(keyGeneratorType);
+  }
+
+  private void submitBatches() {
+    if (statementList.isEmpty()) {
+      return;
+    }
+    final ParallelFlush flush = new ParallelFlush(new ArrayList<>(batchResultList));
+    final List<Statement> statements = new ArrayList<>(statementList);
+    final List<MultiRowInsert> multiRowInserts = new ArrayList<>(multiRowInsertList);
+    Map<Lane, List<Integer>> batchesByLane = new LinkedHashMap<>();
+    for (int i = 0; i < batchLaneList.size(); i++) {
+      batchesByLane.computeIfAbsent(batchLaneList.get(i), k -> new ArrayList<>()).add(i);
+    }
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (Map.Entry<Lane, List<Integer>> entry : batchesByLane.entrySet()) {
+      Lane lane = entry.getKey();
+      List<Integer> indexes = entry.getValue();
+      // each lane runs its batches after the ones it was given before
+      lane.inFlight = lane.inFlight
+          .thenRunAsync(() -> executeLane(flush, lane, indexes, statements, multiRowInserts), configuration.getBatchFlushExecutor())
+          .exceptionally(e -> {
+            flush.fail(indexes, e instanceof CompletionException ? e.getCause() : e);
+            for (int i : indexes) {
+              closeStatement(statements.get(i));
+            }
+            return null;
+          });
+      futures.add(lane.inFlight);
+    }
+    flush.done = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    parallelFlushes.add(flush);
+    // the statements are closed by the lanes once executed
+    clearBatches();
+  }
+
+  private void executeLane(ParallelFlush flush, Lane lane, List<Integer> indexes, List<Statement> statements,
+      List<MultiRowInsert> multiRowInserts) {
+    boolean failed = false;
+    for (int i : indexes) {
+      Statement stmt = statements.get(i);
+      try {
+        if (!failed) {
+          executeBatch(flush.batchResults.get(i), stmt, multiRowInserts.get(i), lane);
+          flush.executed[i] = true;
+        }
+      } catch (BatchUpdateException e) {
+        failed = true;
+        flush.failures[i] = e;
+      } catch (SQLException e) {
+        failed = true;
+        flush.failures[i] = new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), new int[0], e);
+      } catch (RuntimeException e) {
+        failed = true;
+        flush.failures[i] = e;
+      } finally {
+        closeStatement(stmt);
+      }
+    }
+  }
+
+  private void collectParallelFlushes(List<BatchResult> results, boolean wait) throws SQLException {
+    while (!parallelFlushes.isEmpty()) {
+      ParallelFlush flush = parallelFlushes.get(0);
+      if (!wait && !flush.done.isDone()) {
+        return;
+      }
+      flush.done.join();
+      parallelFlushes.remove(0);
+      for (int i = 0; i < flush.batchResults.size(); i++) {
+        if (!flush.executed[i]) {
+          discardParallelFlushes();
+          throw parallelFlushFailure(flush, i, results);
+        }
+        handOver(flush.batchResults.get(i), results);
+      }
+    }
+  }
+
+  private void discardParallelFlushes() {
+    for (ParallelFlush flush : parallelFlushes) {
+      flush.done.join();
+    }
+    parallelFlushes.clear();
+  }
+
+  private RuntimeException parallelFlushFailure(ParallelFlush flush, int index, List<BatchResult> results) throws SQLException {
+    Throwable failure = flush.failures[index];
+    if (failure instanceof BatchUpdateException) {
+      BatchResult batchResult = flush.batchResults.get(index);
+      StringBuilder message = new StringBuilder();
+      message.append(batchResult.getMappedStatement().getId())
+          .append(" (batch index #")
+          .append(index + 1)
+          .append(")")
+          .append(" failed.");
+      if (index > 0) {
+        message.append(" ")
+            .append(index)
+            .append(" prior sub executor(s) completed successfully.");
+      }
+      failure = new BatchExecutorException(message.toString(), (BatchUpdateException) failure, results, batchResult);
+    }
+    // the batches of the other lanes may have failed as well
+    for (int i = index + 1; i < flush.failures.length; i++) {
+      if (flush.failures[i] != null && flush.failures[i] != flush.failures[index]) {
+        failure.addSuppressed(flush.failures[i]);
+      }
+    }
+    if (failure instanceof RuntimeException) {
+      return (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw (SQLException) failure;
+  }
+
+  private MultiRowInsert createMultiRowInsert(MappedStatement ms, String sql, StatementHandler handler) {
+    Integer multiRowInsertSize = configuration.getMultiRowInsertSize();
+    if (multiRowInsertSize == null || multiRowInsertSize <= 1 || ms.getSqlCommandType() != SqlCommandType.INSERT
+        || ms.getStatementType() != StatementType.PREPARED) {
+      return null;
+    }
+    // keys selected after each row cannot be told apart once several rows are inserted at once
+    Class<?> keyGeneratorType = ms.getKeyGenerator().getClass();
+    if (!Jdbc3KeyGenerator.class.equals(keyGeneratorType) && !NoKeyGenerator.class.equals(keyGeneratorType)) {
+      return null;
+    }
+    // the rows are bound as the default parameter handler does, so neither a plugin nor a language driver of
+    // its own may need to bind them
+    if (handler.getClass() != RoutingStatementHandler.class
+        || handler.getParameterHandler().getClass() != DefaultParameterHandler.class) {
+      return null;
+    }
+    return MultiRowInsert.of(sql);
+  }
+
+  private int[] executeMultiRowInsert(BatchResult batchResult, MultiRowInsert multiRowInsert, Connection connection) throws SQLException {
+    final MappedStatement ms = batchResult.getMappedStatement();
+    final List<Object> parameterObjects = batchResult.getParameterObjects();
+    final int rowCount = multiRowInsert.getRowCount();
+    final int multiRowInsertSize = configuration.getMultiRowInsertSize();
+    final int[] updateCounts = new int[rowCount];
+    PreparedStatement stmt = null;
+    int stmtRowCount = 0;
+    try {
+      for (int start = 0; start < rowCount; start += multiRowInsertSize) {
+        int end = Math.min(start + multiRowInsertSize, rowCount);
+        if (end - start != stmtRowCount) {
+          // all the chunks but the last one have the same size, and share the statement
           closeStatement(stmt);
-        } catch (BatchUpdateException e) {
-          StringBuilder message = new StringBuilder();
-          message.append(batchResult.getMappedStatement().getId())
-              .append(" (batch index #")
-              .append(i + 1)
-              .append(")")
-              .append(" failed.");
-          if (i > 0) {
-            message.append(" ")
-                .append(i)
-                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
-          }
-          throw new BatchExecutorException(message.toString(), e, results, batchResult);
+          stmtRowCount = end - start;
+          BoundSql boundSql = new BoundSql(configuration, multiRowInsert.getSql(stmtRowCount),
+              Collections.emptyList(), parameterObjects.get(start));
+          StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObjects.get(start),
+              RowBounds.DEFAULT, null, boundSql);
+          stmt = (PreparedStatement) handler.prepare(connection, transaction.getTimeout());
+        } else {
+          stmt.clearParameters();
+        }
+        ErrorContext.instance().activity("setting parameters").object(ms.getParameterMap().getId());
+        int parameterOffset = 0;
+        for (int row = start; row < end; row++) {
+          parameterOffset = multiRowInsert.setParameters(configuration, stmt, row, parameterOffset);
+        }
+        int updateCount = stmt.executeUpdate();
+        Arrays.fill(updateCounts, start, end, updateCount == end - start ? 1 : Statement.SUCCESS_NO_INFO);
+        if (Jdbc3KeyGenerator.class.equals(ms.getKeyGenerator().getClass())) {
+          ((Jdbc3KeyGenerator) ms.getKeyGenerator()).processBatch(ms, stmt, parameterObjects.subList(start, end));
         }
-        results.add(batchResult);
       }
-      return results;
+    } catch (BatchUpdateException e) {
+      throw e;
+    } catch (SQLException e) {
+      throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), new int[0], e);
     } finally {
-      for (Statement stmt : statementList) {
-        closeStatement(stmt);
+      closeStatement(stmt);
+    }
+    return updateCounts;
+  }
+
+  private boolean isBatchFull(MappedStatement ms, int index, BoundSql boundSql, Object parameterObject) {
+    Integer batchSize = ms.getBatchSize() != null ? ms.getBatchSize() : configuration.getDefaultBatchSize();
+    if (batchSize != null && batchSize > 0 && batchResultList.get(index).getParameterObjects().size() >= batchSize) {
+      return true;
+    }
+    Integer batchByteSize = ms.getBatchByteSize() != null ? ms.getBatchByteSize() : configuration.getDefaultBatchByteSize();
+    if (batchByteSize != null && batchByteSize > 0) {
+      long byteSize = batchByteSizeList.get(index) + estimateByteSize(boundSql, parameterObject);
+      batchByteSizeList.set(index, byteSize);
+      return byteSize >= batchByteSize;
+    }
+    return false;
+  }
+
+  private long estimateByteSize(BoundSql boundSql, Object parameterObject) {
+    long byteSize = 0;
+    MetaObject metaObject = null;
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      if (parameterMapping.getMode() == ParameterMode.OUT) {
+        continue;
       }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
+      Object value;
+      String propertyName = parameterMapping.getProperty();
+      if (boundSql.hasAdditionalParameter(propertyName)) {
+        value = boundSql.getAdditionalParameter(propertyName);
+      } else if (parameterObject == null) {
+        value = null;
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+        value = parameterObject;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameterObject);
+        }
+        value = metaObject.getValue(propertyName);
+      }
+      if (value instanceof CharSequence) {
+        byteSize += ((CharSequence) value).length();
+      } else if (value instanceof byte[]) {
+        byteSize += ((byte[]) value).length;
+      } else if (value instanceof char[]) {
+        byteSize += ((char[]) value).length;
+      } else {
+        byteSize += Long.BYTES;
+      }
+    }
+    return byteSize;
+  }
+
+  private int findOpenBatch(MappedStatement ms, String sql) {
+    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
+      return statementList.size() - 1;
+    }
+    if (openBatches.isEmpty()) {
+      return -1;
     }
+    Integer index = openBatches.get(new BatchKey(ms, sql));
+    return index == null ? -1 : index;
+  }
+
+  private static final class BatchKey {
+
+    private final MappedStatement mappedStatement;
+    private final String sql;
+
+    BatchKey(MappedStatement mappedStatement, String sql) {
+      this.mappedStatement = mappedStatement;
+      this.sql = sql;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof BatchKey)) {
+        return false;
+      }
+      BatchKey other = (BatchKey) o;
+      return mappedStatement.equals(other.mappedStatement) && sql.equals(other.sql);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * mappedStatement.hashCode() + sql.hashCode();
+    }
+
+  }
+
+  private static final class Lane {
+
+    private final Transaction transaction;
+    private final Connection connection;
+    private CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+
+    Lane(Transaction transaction, Connection connection) {
+      this.transaction = transaction;
+      this.connection = connection;
+    }
+
+    Connection getConnection(Log statementLog) {
+      return statementLog.isDebugEnabled() ? ConnectionLogger.newInstance(connection, statementLog, 0) : connection;
+    }
+
+  }
+
+  private static final class ParallelFlush {
+
+    private final List<BatchResult> batchResults;
+    private final boolean[] executed;
+    private final Throwable[] failures;
+    private CompletableFuture<Void> done;
+
+    ParallelFlush(List<BatchResult> batchResults) {
+      this.batchResults = batchResults;
+      this.executed = new boolean[batchResults.size()];
+      this.failures = new Throwable[batchResults.size()];
+    }
+
+    void fail(List<Integer> indexes, Throwable failure) {
+      for (int i : indexes) {
+        if (!executed[i] && failures[i] == null) {
+          failures[i] = failure;
+        }
+      }
+    }
+
   }
 
 }
@@ -16,10 +16,14 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.CacheTagIndex;
 import org.apache.ibatis.cache.TransactionalCacheManager;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
@@ -28,6 +32,7 @@ import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -72,18 +77,24 @@ public class CachingExecutor implements Executor {
 
   @Override
   public int update(MappedStatement ms, Object parameterObject) throws SQLException {
-    flushCacheIfRequired(ms);
+    tcm.markPendingWrites();
+    flushCacheIfRequired(ms, parameterObject);
     return delegate.update(ms, parameterObject);
   }
 
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
-    flushCacheIfRequired(ms);
+    flushCacheIfRequired(ms, parameter);
     return delegate.queryCursor(ms, parameter, rowBounds);
   }
 
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
+    if (ms.getCache() == null || !ms.isUseCache() || resultHandler != null) {
+      // no key needed here, let the delegate decide whether it needs one
+      flushCacheIfRequired(ms, parameterObject);
+      return delegate.query(ms, parameterObject, rowBounds, resultHandler);
+    }
     BoundSql boundSql = ms.getBoundSql(parameterObject);
     CacheKey key = createCacheKey(ms, parameterObject, rowBounds, boundSql);
     return query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
@@ -94,16 +105,22 @@ public class CachingExecutor implements Executor {
       throws SQLException {
     Cache cache = ms.getCache();
     if (cache != null) {
-      flushCacheIfRequired(ms);
+      flushCacheIfRequired(ms, parameterObject);
       if (ms.isUseCache() && resultHandler == null) {
         ensureNoOutParams(ms, boundSql);
-        @SuppressWarnings("unchecked")
-        List<E> list = (List<E>) tcm.getObject(cache, key);
-        if (list == null) {
-          list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
-          tcm.putObject(cache, key, list); // issue #578 and #116
+        try {
+          Callable<List<E>> loader = () -> delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+          CacheTagIndex tagIndex = getCacheTagIndex(ms, cache);
+          // issue #578 and #116
+          @SuppressWarnings("unchecked")
+          List<E> list = (List<E>) (tagIndex == null ? tcm.getObject(cache, key, loader)
+              : tcm.getObject(cache, tagIndex, key, getCacheTags(ms, parameterObject), loader));
+          return list;
+        } catch (SQLException | RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new ExecutorException("Error querying the second level cache. Cause: " + e, e);
         }
-        return list;
       }
     }
     return delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
@@ -114,6 +131,11 @@ public class CachingExecutor implements Executor {
     return delegate.flushStatements();
   }
 
+  @Override
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    delegate.setBatchResultHandler(batchResultHandler);
+  }
+
   @Override
   public void commit(boolean required) throws SQLException {
     delegate.commit(required);
@@ -161,11 +183,44 @@ public class CachingExecutor implements Executor {
     delegate.clearLocalCache();
   }
 
-  private void flushCacheIfRequired(MappedStatement ms) {
+  private void flushCacheIfRequired(MappedStatement ms, Object parameterObject) {
     Cache cache = ms.getCache();
     if (cache != null && ms.isFlushCacheRequired()) {
-      tcm.clear(cache);
+      CacheTagIndex tagIndex = getCacheTagIndex(ms, cache);
+      if (tagIndex == null) {
+        tcm.clear(cache);
+      } else {
+        tcm.invalidate(cache, tagIndex, getCacheTags(ms, parameterObject));
+      }
+    }
+  }
+
+  private CacheTagIndex getCacheTagIndex(MappedStatement ms, Cache cache) {
+    if (ms.getCacheTags() == null) {
+      return null;
+    }
+    return ms.getConfiguration().getCacheTagIndex(cache.getId());
+  }
+
+  private Map<String, Object> getCacheTags(MappedStatement ms, Object parameterObject) {
+    Configuration configuration = ms.getConfiguration();
+    MetaObject metaObject = null;
+    Map<String, Object> tags = new HashMap<>();
+    for (Map.Entry<String, String> tag : ms.getCacheTags().entrySet()) {
+      Object value;
+      if (parameterObject == null) {
+        value = null;
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+        value = parameterObject;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameterObject);
+        }
+        value = metaObject.getValue(tag.getValue());
+      }
+      tags.put(tag.getKey(), CacheTagIndex.tagValue(value));
     }
+    return tags;
   }
 
   @Override
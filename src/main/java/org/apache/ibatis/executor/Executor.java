@@ -44,6 +44,18 @@ public interface Executor {
 
   List<BatchResult> flushStatements() throws SQLException;
 
+  /**
+   * Sets the handler that receives the result of each batch once it is executed. The results are then no longer
+   * returned by {@link #flushStatements()}. Executors that do not batch statements ignore it.
+   *
+   * @param batchResultHandler
+   *          the handler, or null to return the results from {@link #flushStatements()}
+   * @since 3.5.10
+   */
+  default void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    // nothing to handle
+  }
+
   void commit(boolean required) throws SQLException;
 
   void rollback(boolean required) throws SQLException;
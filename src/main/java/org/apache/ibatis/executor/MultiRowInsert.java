@@ -0,0 +1,215 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeException;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * The rows batched for an {@code INSERT ... VALUES (...)} statement, which are sent several at a time in multi-row
+ * {@code INSERT ... VALUES (...), (...)} statements.
+ * <p>
+ * The parameter values of a row are read when it is added, as a parameter object may be changed and added again
+ * before the rows are sent.
+ */
+final class MultiRowInsert {
+
+  private final String head;
+  private final String row;
+  private final List<Row> rows = new ArrayList<>();
+
+  private MultiRowInsert(String head, String row) {
+    this.head = head;
+    this.row = row;
+  }
+
+  /**
+   * Returns the rewritable form of the sql, if it inserts a single row of values whose placeholders all are in the
+   * {@code VALUES} row, and nothing follows that row.
+   *
+   * @param sql
+   *          the sql of an insert statement
+   * @return the multi-row insert, or null if the sql cannot be rewritten
+   */
+  static MultiRowInsert of(String sql) {
+    int valuesEnd = -1;
+    int depth = 0;
+    for (int i = 0; i < sql.length() && valuesEnd < 0; i++) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"') {
+        i = skipQuoted(sql, i);
+        if (i < 0) {
+          return null;
+        }
+      } else if (c == '?' || isCommentStart(sql, i)) {
+        return null;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && isValuesKeyword(sql, i)) {
+        valuesEnd = i + "values".length();
+      }
+    }
+    if (valuesEnd < 0) {
+      return null;
+    }
+    int rowStart = valuesEnd;
+    while (rowStart < sql.length() && Character.isWhitespace(sql.charAt(rowStart))) {
+      rowStart++;
+    }
+    if (rowStart == sql.length() || sql.charAt(rowStart) != '(') {
+      return null;
+    }
+    int rowEnd = -1;
+    depth = 0;
+    for (int i = rowStart; i < sql.length() && rowEnd < 0; i++) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"') {
+        i = skipQuoted(sql, i);
+        if (i < 0) {
+          return null;
+        }
+      } else if (isCommentStart(sql, i)) {
+        return null;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        rowEnd = i + 1;
+      }
+    }
+    if (rowEnd < 0 || !sql.substring(rowEnd).trim().isEmpty()) {
+      return null;
+    }
+    return new MultiRowInsert(sql.substring(0, valuesEnd) + " ", sql.substring(rowStart, rowEnd));
+  }
+
+  void addRow(Configuration configuration, BoundSql boundSql, Object parameterObject) {
+    TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    Object[] values = new Object[parameterMappings.size()];
+    MetaObject metaObject = null;
+    for (int i = 0; i < values.length; i++) {
+      ParameterMapping parameterMapping = parameterMappings.get(i);
+      if (parameterMapping.getMode() != ParameterMode.OUT) {
+        String propertyName = parameterMapping.getProperty();
+        if (boundSql.hasAdditionalParameter(propertyName)) {
+          values[i] = boundSql.getAdditionalParameter(propertyName);
+        } else if (parameterObject == null) {
+          values[i] = null;
+        } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+          values[i] = parameterObject;
+        } else {
+          if (metaObject == null) {
+            metaObject = configuration.newMetaObject(parameterObject);
+          }
+          values[i] = metaObject.getValue(propertyName);
+        }
+      }
+    }
+    rows.add(new Row(parameterMappings, values));
+  }
+
+  int getRowCount() {
+    return rows.size();
+  }
+
+  /**
+   * Sets the parameters of a row after the given number of parameters of the statement, i.e. those of the previous
+   * rows.
+   *
+   * @return the number of parameters of the statement up to the last one of this row
+   */
+  int setParameters(Configuration configuration, PreparedStatement ps, int rowIndex, int parameterOffset) {
+    Row row = rows.get(rowIndex);
+    for (int i = 0; i < row.values.length; i++) {
+      ParameterMapping parameterMapping = row.parameterMappings.get(i);
+      if (parameterMapping.getMode() != ParameterMode.OUT) {
+        Object value = row.values[i];
+        TypeHandler typeHandler = parameterMapping.getTypeHandler();
+        JdbcType jdbcType = parameterMapping.getJdbcType();
+        if (value == null && jdbcType == null) {
+          jdbcType = configuration.getJdbcTypeForNull();
+        }
+        try {
+          typeHandler.setParameter(ps, parameterOffset + i + 1, value, jdbcType);
+        } catch (TypeException | SQLException e) {
+          throw new TypeException("Could not set parameters for mapping: " + parameterMapping + ". Cause: " + e, e);
+        }
+      }
+    }
+    return parameterOffset + row.values.length;
+  }
+
+  String getSql(int rowCount) {
+    StringBuilder sql = new StringBuilder(head.length() + rowCount * (row.length() + 2));
+    sql.append(head);
+    for (int i = 0; i < rowCount; i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(row);
+    }
+    return sql.toString();
+  }
+
+  private static int skipQuoted(String sql, int start) {
+    // a doubled quote is an escaped quote, so it is skipped as the end and start of two quoted parts
+    int end = sql.indexOf(sql.charAt(start), start + 1);
+    // some databases, like MySQL, escape quotes with a backslash, which others take literally
+    if (end < 0 || sql.lastIndexOf('\\', end) > start) {
+      return -1;
+    }
+    return end;
+  }
+
+  private static boolean isCommentStart(String sql, int i) {
+    return i + 1 < sql.length()
+        && ((sql.charAt(i) == '-' && sql.charAt(i + 1) == '-') || (sql.charAt(i) == '/' && sql.charAt(i + 1) == '*'));
+  }
+
+  private static boolean isValuesKeyword(String sql, int i) {
+    int end = i + "values".length();
+    return sql.regionMatches(true, i, "values", 0, "values".length())
+        && (i == 0 || !Character.isJavaIdentifierPart(sql.charAt(i - 1)))
+        && (end == sql.length() || !Character.isJavaIdentifierPart(sql.charAt(end)));
+  }
+
+  private static final class Row {
+
+    private final List<ParameterMapping> parameterMappings;
+    private final Object[] values;
+
+    Row(List<ParameterMapping> parameterMappings, Object[] values) {
+      this.parameterMappings = parameterMappings;
+      this.values = values;
+    }
+
+  }
+
+}
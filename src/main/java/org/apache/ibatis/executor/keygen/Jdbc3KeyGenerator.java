@@ -34,8 +34,12 @@ import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.ArrayUtil;
+import org.apache.ibatis.reflection.ExceptionUtil;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.BeanWrapper;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.defaults.DefaultSqlSession.StrictMap;
 import org.apache.ibatis.type.JdbcType;
@@ -111,9 +115,9 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
     if (params.isEmpty()) {
       return;
     }
-    List<KeyAssigner> assignerList = new ArrayList<>();
+    KeyAssigner[] assigners = new KeyAssigner[keyProperties.length];
     for (int i = 0; i < keyProperties.length; i++) {
-      assignerList.add(new KeyAssigner(configuration, rsmd, i + 1, null, keyProperties[i]));
+      assigners[i] = new KeyAssigner(configuration, rsmd, i + 1, null, keyProperties[i]);
     }
     Iterator<?> iterator = params.iterator();
     while (rs.next()) {
@@ -121,28 +125,32 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
         throw new ExecutorException(String.format(MSG_TOO_MANY_KEYS, params.size()));
       }
       Object param = iterator.next();
-      assignerList.forEach(x -> x.assign(rs, param));
+      for (KeyAssigner assigner : assigners) {
+        assigner.assign(rs, param);
+      }
     }
   }
 
   private void assignKeysToParamMapList(Configuration configuration, ResultSet rs, ResultSetMetaData rsmd,
       String[] keyProperties, ArrayList<ParamMap<?>> paramMapList) throws SQLException {
     Iterator<ParamMap<?>> iterator = paramMapList.iterator();
-    List<KeyAssigner> assignerList = new ArrayList<>();
+    KeyAssigner[] assigners = null;
     long counter = 0;
     while (rs.next()) {
       if (!iterator.hasNext()) {
         throw new ExecutorException(String.format(MSG_TOO_MANY_KEYS, counter));
       }
       ParamMap<?> paramMap = iterator.next();
-      if (assignerList.isEmpty()) {
+      if (assigners == null) {
+        assigners = new KeyAssigner[keyProperties.length];
         for (int i = 0; i < keyProperties.length; i++) {
-          assignerList
-              .add(getAssignerForParamMap(configuration, rsmd, i + 1, paramMap, keyProperties[i], keyProperties, false)
-                  .getValue());
+          assigners[i] = getAssignerForParamMap(configuration, rsmd, i + 1, paramMap, keyProperties[i], keyProperties,
+              false).getValue();
         }
       }
-      assignerList.forEach(x -> x.assign(rs, paramMap));
+      for (KeyAssigner assigner : assigners) {
+        assigner.assign(rs, paramMap);
+      }
       counter++;
     }
   }
@@ -160,14 +168,24 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
           k -> MapUtil.entry(collectionize(paramMap.get(k)).iterator(), new ArrayList<>()));
       iteratorPair.getValue().add(entry.getValue());
     }
+    // the rows are iterated over arrays, so that no iterator is created for each of them
+    Iterator<?>[] iterators = new Iterator<?>[assignerMap.size()];
+    KeyAssigner[][] assigners = new KeyAssigner[assignerMap.size()][];
+    int paramIndex = 0;
+    for (Entry<Iterator<?>, List<KeyAssigner>> pair : assignerMap.values()) {
+      iterators[paramIndex] = pair.getKey();
+      assigners[paramIndex++] = pair.getValue().toArray(new KeyAssigner[0]);
+    }
     long counter = 0;
     while (rs.next()) {
-      for (Entry<Iterator<?>, List<KeyAssigner>> pair : assignerMap.values()) {
-        if (!pair.getKey().hasNext()) {
+      for (int i = 0; i < iterators.length; i++) {
+        if (!iterators[i].hasNext()) {
           throw new ExecutorException(String.format(MSG_TOO_MANY_KEYS, counter));
         }
-        Object param = pair.getKey().next();
-        pair.getValue().forEach(x -> x.assign(rs, param));
+        Object param = iterators[i].next();
+        for (KeyAssigner assigner : assigners[i]) {
+          assigner.assign(rs, param);
+        }
       }
       counter++;
     }
@@ -234,7 +252,10 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
     private final int columnPosition;
     private final String paramName;
     private final String propertyName;
+    // resolved once for the class of the first param, and again only when a param of another class comes
+    private Class<?> paramType;
     private TypeHandler<?> typeHandler;
+    private Invoker setter;
 
     protected KeyAssigner(Configuration configuration, ResultSetMetaData rsmd, int columnPosition, String paramName,
         String propertyName) {
@@ -252,28 +273,54 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
         // If paramName is set, param is ParamMap
         param = ((ParamMap<?>) param).get(paramName);
       }
-      MetaObject metaParam = configuration.newMetaObject(param);
       try {
-        if (typeHandler == null) {
-          if (metaParam.hasSetter(propertyName)) {
-            Class<?> propertyType = metaParam.getSetterType(propertyName);
-            typeHandler = typeHandlerRegistry.getTypeHandler(propertyType,
-                JdbcType.forCode(rsmd.getColumnType(columnPosition)));
-          } else {
-            throw new ExecutorException("No setter found for the keyProperty '" + propertyName + "' in '"
-                + metaParam.getOriginalObject().getClass().getName() + "'.");
-          }
+        MetaObject metaParam = null;
+        if (paramType == null || param == null || param.getClass() != paramType) {
+          metaParam = configuration.newMetaObject(param);
+          resolve(metaParam);
         }
         if (typeHandler == null) {
           // Error?
         } else {
           Object value = typeHandler.getResult(rs, columnPosition);
-          metaParam.setValue(propertyName, value);
+          if (setter != null) {
+            setValue(param, value);
+          } else {
+            (metaParam != null ? metaParam : configuration.newMetaObject(param)).setValue(propertyName, value);
+          }
         }
       } catch (SQLException e) {
         throw new ExecutorException("Error getting generated key or setting result to parameter object. Cause: " + e,
             e);
       }
     }
+
+    private void resolve(MetaObject metaParam) throws SQLException {
+      if (!metaParam.hasSetter(propertyName)) {
+        throw new ExecutorException("No setter found for the keyProperty '" + propertyName + "' in '"
+            + metaParam.getOriginalObject().getClass().getName() + "'.");
+      }
+      Class<?> propertyType = metaParam.getSetterType(propertyName);
+      typeHandler = typeHandlerRegistry.getTypeHandler(propertyType,
+          JdbcType.forCode(rsmd.getColumnType(columnPosition)));
+      Object param = metaParam.getOriginalObject();
+      paramType = param.getClass();
+      // a plain property of a bean is set through its setter directly, anything else through a meta object
+      // subclasses of BeanWrapper may resolve properties differently, so only BeanWrapper itself is bypassed
+      setter = metaParam.getObjectWrapper().getClass() == BeanWrapper.class && propertyName.indexOf('.') == -1
+          && propertyName.indexOf('[') == -1
+              ? configuration.getReflectorFactory().findForClass(paramType).getSetInvoker(propertyName)
+              : null;
+    }
+
+    private void setValue(Object param, Object value) {
+      try {
+        setter.invoke(param, new Object[] { value });
+      } catch (Throwable t) {
+        Throwable cause = ExceptionUtil.unwrapThrowable(t);
+        throw new ReflectionException("Could not set property '" + propertyName + "' of '" + param.getClass()
+            + "' with value '" + value + "' Cause: " + cause.toString(), cause);
+      }
+    }
   }
 }
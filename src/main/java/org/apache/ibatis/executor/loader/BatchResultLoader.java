@@ -0,0 +1,306 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.ResultExtractor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Loads the nested select of a result mapping with a batch size for several result objects at once.
+ * <p>
+ * The keys of the objects added to the batch are passed to the nested select as one list, and the rows it returns are
+ * matched back to the objects by their foreign key. An object added with {@link #addLazy} gets a result loader of its
+ * own: the first of them that loads runs the nested select for all the objects of the batch whose property has not been
+ * loaded yet.
+ *
+ * @since 3.5.10
+ */
+public class BatchResultLoader {
+
+  private final Configuration configuration;
+  private final Executor executor;
+  private final MappedStatement mappedStatement;
+  private final ResultMapping propertyMapping;
+  private final ResultExtractor resultExtractor;
+  private final long creatorThreadId;
+  private final Map<List<Object>, PendingKey> pendingKeys = new LinkedHashMap<>();
+
+  public BatchResultLoader(Configuration configuration, Executor executor, MappedStatement mappedStatement, ResultMapping propertyMapping) {
+    this.configuration = configuration;
+    this.executor = executor;
+    this.mappedStatement = mappedStatement;
+    this.propertyMapping = propertyMapping;
+    this.resultExtractor = new ResultExtractor(configuration, configuration.getObjectFactory());
+    this.creatorThreadId = Thread.currentThread().getId();
+  }
+
+  /**
+   * Adds an object whose property is set by the next call to {@link #load()}.
+   *
+   * @param metaResultObject
+   *          the result object
+   * @param parameterObject
+   *          the key of the result object, as it would be passed to the nested select
+   */
+  public void add(MetaObject metaResultObject, Object parameterObject) {
+    add(createKey(parameterObject), parameterObject, new PendingObject(metaResultObject, null));
+  }
+
+  /**
+   * Adds an object whose property is loaded lazily.
+   *
+   * @param metaResultObject
+   *          the result object
+   * @param parameterObject
+   *          the key of the result object, as it would be passed to the nested select
+   * @param lazyLoader
+   *          the lazy loaders of the result object, from which the returned loader is removed once the property has
+   *          been loaded by another object of the batch
+   * @return the result loader to add to the lazy loaders of the result object
+   */
+  public ResultLoader addLazy(MetaObject metaResultObject, Object parameterObject, ResultLoaderMap lazyLoader) {
+    PendingObject pendingObject = new PendingObject(metaResultObject, lazyLoader);
+    pendingObject.loader = new BatchMemberLoader(this, parameterObject, pendingObject);
+    add(pendingObject.loader.key, parameterObject, pendingObject);
+    return pendingObject.loader;
+  }
+
+  /**
+   * Returns the number of distinct keys waiting to be loaded.
+   *
+   * @return the number of keys
+   */
+  public synchronized int size() {
+    return pendingKeys.size();
+  }
+
+  /**
+   * Runs the nested select for all the objects added so far and sets their property.
+   *
+   * @throws SQLException
+   *           if the nested select fails
+   */
+  public void load() throws SQLException {
+    load(null);
+  }
+
+  private synchronized void add(List<Object> key, Object parameterObject, PendingObject pendingObject) {
+    pendingKeys.computeIfAbsent(key, k -> new PendingKey(parameterObject)).objects.add(pendingObject);
+  }
+
+  private Object load(BatchMemberLoader trigger) throws SQLException {
+    final Map<List<Object>, PendingKey> loading;
+    synchronized (this) {
+      loading = new LinkedHashMap<>(pendingKeys);
+      pendingKeys.clear();
+    }
+    if (trigger != null) {
+      // the trigger may have been loaded along with another batch in the meantime
+      PendingKey pendingKey = loading.computeIfAbsent(trigger.key, k -> new PendingKey(trigger.rawParameterObject));
+      if (!pendingKey.objects.contains(trigger.pendingObject)) {
+        pendingKey.objects.add(trigger.pendingObject);
+      }
+    }
+    final List<Object> parameterObjects = new ArrayList<>();
+    for (PendingKey pendingKey : loading.values()) {
+      parameterObjects.add(pendingKey.parameterObject);
+    }
+    final List<Object> children = selectList(ParamNameResolver.wrapToMapIfCollection(parameterObjects, null));
+    final List<String> foreignProperties = resolveForeignProperties();
+    final Map<List<Object>, List<Object>> childrenByKey = new HashMap<>();
+    for (Object child : children) {
+      childrenByKey.computeIfAbsent(createForeignKey(child, foreignProperties), k -> new ArrayList<>()).add(child);
+    }
+    final String property = propertyMapping.getProperty();
+    Object triggerValue = null;
+    for (Map.Entry<List<Object>, PendingKey> pendingKey : loading.entrySet()) {
+      final List<Object> matchingChildren = childrenByKey.getOrDefault(pendingKey.getKey(), Collections.emptyList());
+      for (PendingObject pendingObject : pendingKey.getValue().objects) {
+        Object value = resultExtractor.extractObjectFromList(new ArrayList<>(matchingChildren), propertyMapping.getJavaType());
+        if (trigger != null && pendingObject == trigger.pendingObject) {
+          // set by the lazy loader of the trigger
+          triggerValue = value;
+        } else if (pendingObject.lazyLoader == null || pendingObject.lazyLoader.hasLoader(property)) {
+          MetaObject metaObject = pendingObject.metaObject;
+          if (value != null || (configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive())) {
+            metaObject.setValue(property, value);
+          }
+          if (pendingObject.lazyLoader != null) {
+            pendingObject.lazyLoader.remove(property);
+          }
+        }
+      }
+    }
+    return triggerValue;
+  }
+
+  private List<Object> selectList(Object parameterObject) throws SQLException {
+    Executor localExecutor = executor;
+    if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
+      localExecutor = ResultLoader.newExecutor(configuration);
+    }
+    try {
+      return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    } finally {
+      if (localExecutor != executor) {
+        localExecutor.close(false);
+      }
+    }
+  }
+
+  private List<Object> createKey(Object parameterObject) {
+    if (!propertyMapping.isCompositeResult()) {
+      return Collections.singletonList(normalizeKeyValue(parameterObject));
+    }
+    final MetaObject metaParameter = configuration.newMetaObject(parameterObject);
+    final List<Object> key = new ArrayList<>();
+    for (ResultMapping composite : propertyMapping.getComposites()) {
+      key.add(normalizeKeyValue(metaParameter.getValue(composite.getProperty())));
+    }
+    return key;
+  }
+
+  private List<Object> createForeignKey(Object child, List<String> foreignProperties) {
+    final MetaObject metaChild = configuration.newMetaObject(child);
+    final List<Object> key = new ArrayList<>();
+    for (String foreignProperty : foreignProperties) {
+      key.add(normalizeKeyValue(child instanceof Map ? getIgnoringCase((Map<?, ?>) child, foreignProperty)
+          : metaChild.getValue(foreignProperty)));
+    }
+    return key;
+  }
+
+  private static Object getIgnoringCase(Map<?, ?> map, String column) {
+    // map keys are column labels, whose case depends on the driver
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      if (column.equalsIgnoreCase(String.valueOf(entry.getKey()))) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  private List<String> resolveForeignProperties() {
+    final List<String> foreignColumns = new ArrayList<>();
+    if (propertyMapping.getForeignColumn() != null) {
+      for (String foreignColumn : propertyMapping.getForeignColumn().split(",")) {
+        foreignColumns.add(foreignColumn.trim());
+      }
+    } else if (propertyMapping.isCompositeResult()) {
+      for (ResultMapping composite : propertyMapping.getComposites()) {
+        foreignColumns.add(composite.getColumn());
+      }
+    } else {
+      foreignColumns.add(propertyMapping.getColumn());
+    }
+    final ResultMap childResultMap = mappedStatement.getResultMaps().get(0);
+    final List<String> foreignProperties = new ArrayList<>();
+    for (String foreignColumn : foreignColumns) {
+      foreignProperties.add(resolveForeignProperty(childResultMap, foreignColumn));
+    }
+    return foreignProperties;
+  }
+
+  private String resolveForeignProperty(ResultMap childResultMap, String foreignColumn) {
+    for (ResultMapping childMapping : childResultMap.getResultMappings()) {
+      if (foreignColumn.equalsIgnoreCase(childMapping.getColumn()) && childMapping.getProperty() != null) {
+        return childMapping.getProperty();
+      }
+    }
+    final Class<?> childType = childResultMap.getType();
+    if (Map.class.isAssignableFrom(childType)) {
+      return foreignColumn;
+    }
+    final MetaClass metaClass = MetaClass.forClass(childType, configuration.getReflectorFactory());
+    final String property = metaClass.findProperty(foreignColumn, configuration.isMapUnderscoreToCamelCase());
+    if (property == null) {
+      throw new ExecutorException("Cannot batch the nested select of property '" + propertyMapping.getProperty()
+          + "': column '" + foreignColumn + "' is not mapped to a property of " + childType.getName()
+          + ". Set the foreignColumn to the columns of the nested select that hold the key.");
+    }
+    return property;
+  }
+
+  private static Object normalizeKeyValue(Object value) {
+    // the key read from the parent row and the property of the child may be of different integer types
+    if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+      return ((Number) value).longValue();
+    }
+    return value;
+  }
+
+  private static class PendingKey {
+    private final Object parameterObject;
+    private final List<PendingObject> objects = new ArrayList<>();
+
+    PendingKey(Object parameterObject) {
+      this.parameterObject = parameterObject;
+    }
+  }
+
+  private static class PendingObject {
+    private final MetaObject metaObject;
+    private final ResultLoaderMap lazyLoader;
+    private BatchMemberLoader loader;
+
+    PendingObject(MetaObject metaObject, ResultLoaderMap lazyLoader) {
+      this.metaObject = metaObject;
+      this.lazyLoader = lazyLoader;
+    }
+  }
+
+  private static class BatchMemberLoader extends ResultLoader {
+    private final BatchResultLoader batch;
+    private final Object rawParameterObject;
+    private final List<Object> key;
+    private final PendingObject pendingObject;
+
+    BatchMemberLoader(BatchResultLoader batch, Object parameterObject, PendingObject pendingObject) {
+      // on its own, e.g. once deserialized, the nested select is run with a list of one key
+      super(batch.configuration, batch.executor, batch.mappedStatement,
+          ParamNameResolver.wrapToMapIfCollection(Collections.singletonList(parameterObject), null),
+          batch.propertyMapping.getJavaType(), null, null);
+      this.batch = batch;
+      this.rawParameterObject = parameterObject;
+      this.key = batch.createKey(parameterObject);
+      this.pendingObject = pendingObject;
+    }
+
+    @Override
+    public Object loadResult() throws SQLException {
+      resultObject = batch.load(this);
+      return resultObject;
+    }
+  }
+
+}
@@ -19,13 +19,16 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Parameter;
 import java.sql.CallableStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -41,6 +44,7 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.BatchResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
@@ -54,16 +58,23 @@ import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.reflection.Reflector;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.BeanWrapper;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.IntegerTypeHandler;
 import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.LongTypeHandler;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 import org.apache.ibatis.util.MapUtil;
@@ -90,17 +101,27 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final ReflectorFactory reflectorFactory;
 
   // nested resultmaps
-  private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
+  private final Map<RowKey, Object> nestedResultObjects = new HashMap<>();
+  private final RowKey rowKey = new RowKey();
   private final Map<String, Object> ancestorObjects = new HashMap<>();
   private Object previousRowValue;
+  private StreamedRow streamedRow;
 
   // multiple resultsets
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
-  // Cached Automappings
-  private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
+  // nested queries run for several rows at once
+  private final Map<ResultMapping, BatchResultLoader> nestedQueryBatches = new IdentityHashMap<>();
+  private final Map<ResultMapping, BatchResultLoader> lazyNestedQueryBatches = new IdentityHashMap<>();
+  private boolean batchNestedQueries;
+
+  // Compiled row mappings of the current result set
+  private int resultSetIndex;
+  private ResultSetWrapper rowMappingResultSet;
+  private final Map<ResultMap, Map<String, RowMappingPlan>> rowMappingPlans = new IdentityHashMap<>();
   private final Map<String, List<String>> constructorAutoMappingColumns = new HashMap<>();
+  private final Map<ResultMap, Map<String, RowKey.Columns>> rowKeyColumns = new IdentityHashMap<>();
 
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
@@ -110,17 +131,31 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
-  private static class UnMappedColumnAutoMapping {
-    private final String column;
-    private final String property;
-    private final TypeHandler<?> typeHandler;
-    private final boolean primitive;
+  // object of the current row at a nesting level of a streamed result, with those nested in it
+  private static class StreamedRow {
+    private final RowKey key;
+    private Object value;
+    private Map<ResultMapping, StreamedRow> children;
+
+    StreamedRow(RowKey key) {
+      this.key = key;
+    }
+
+    boolean isSameObject(RowKey rowKey) {
+      return key != RowKey.NULL && key.equals(rowKey);
+    }
 
-    public UnMappedColumnAutoMapping(String column, String property, TypeHandler<?> typeHandler, boolean primitive) {
-      this.column = column;
-      this.property = property;
-      this.typeHandler = typeHandler;
-      this.primitive = primitive;
+    StreamedRow getChild(ResultMapping resultMapping, RowKey rowKey) {
+      if (children == null) {
+        children = new IdentityHashMap<>();
+      }
+      StreamedRow child = children.get(resultMapping);
+      if (child == null || !child.isSameObject(rowKey)) {
+        // the rows of the previous object are over, so it is dropped along with the objects nested in it
+        child = new StreamedRow(rowKey.copy());
+        children.put(resultMapping, child);
+      }
+      return child;
     }
   }
 
@@ -254,7 +289,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
-    return rs != null ? new ResultSetWrapper(rs, configuration) : null;
+    resultSetIndex = 0;
+    return rs != null ? wrapResultSet(rs) : null;
   }
 
   private ResultSetWrapper getNextResultSet(Statement stmt) {
@@ -267,7 +303,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           if (rs == null) {
             return getNextResultSet(stmt);
           } else {
-            return new ResultSetWrapper(rs, configuration);
+            return wrapResultSet(rs);
           }
         }
       }
@@ -277,6 +313,21 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return null;
   }
 
+  private ResultSetWrapper wrapResultSet(ResultSet rs) throws SQLException {
+    if (boundSql == null || mappedStatement.getStatementType() == StatementType.CALLABLE) {
+      // the columns returned by a procedure may vary with its parameters
+      return new ResultSetWrapper(rs, configuration);
+    }
+    final int index = resultSetIndex++;
+    final ResultSetMetaData metaData = rs.getMetaData();
+    ResultSetColumns columns = mappedStatement.getResultSetColumns(boundSql.getSql(), index);
+    if (columns == null || !columns.matches(metaData, configuration.isUseColumnLabel())) {
+      columns = new ResultSetColumns(metaData, configuration.isUseColumnLabel());
+      mappedStatement.putResultSetColumns(boundSql.getSql(), index, columns);
+    }
+    return new ResultSetWrapper(rs, configuration, columns);
+  }
+
   private void closeResultSet(ResultSet rs) {
     try {
       if (rs != null) {
@@ -289,6 +340,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private void cleanUpAfterHandlingResultSet() {
     nestedResultObjects.clear();
+    streamedRow = null;
   }
 
   private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -305,13 +357,18 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       } else {
         if (resultHandler == null) {
           DefaultResultHandler defaultResultHandler = new DefaultResultHandler(objectFactory);
+          // the rows are not handed out before the end of the result set, so nested queries can wait until then
+          batchNestedQueries = true;
           handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
+          loadNestedQueryBatches();
           multipleResults.add(defaultResultHandler.getResultList());
         } else {
           handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
         }
       }
     } finally {
+      batchNestedQueries = false;
+      nestedQueryBatches.clear();
       // issue #228 (close resultsets)
       closeResultSet(rsw.getResultSet());
     }
@@ -330,7 +387,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     if (resultMap.hasNestedResultMaps()) {
       ensureNoRowBounds();
       checkResultHandler();
-      handleRowValuesForNestedResultMap(rsw, resultMap, resultHandler, rowBounds, parentMapping);
+      if (mappedStatement.isResultStreamed()) {
+        handleRowValuesForStreamedResultMap(rsw, resultMap, resultHandler, rowBounds, parentMapping);
+      } else {
+        handleRowValuesForNestedResultMap(rsw, resultMap, resultHandler, rowBounds, parentMapping);
+      }
     } else {
       handleRowValuesForSimpleResultMap(rsw, resultMap, resultHandler, rowBounds, parentMapping);
     }
@@ -344,7 +405,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
   protected void checkResultHandler() {
-    if (resultHandler != null && configuration.isSafeResultHandlerEnabled() && !mappedStatement.isResultOrdered()) {
+    if (resultHandler != null && configuration.isSafeResultHandlerEnabled() && !mappedStatement.isResultOrdered()
+        && !mappedStatement.isResultStreamed()) {
       throw new ExecutorException("Mapped Statements with nested result mappings cannot be safely used with a custom ResultHandler. "
           + "Use safeResultHandlerEnabled=false setting to bypass this check "
           + "or ensure your statement returns ordered data and set resultOrdered=true on it.");
@@ -404,11 +466,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     Object rowValue = createResultObject(rsw, resultMap, lazyLoader, columnPrefix);
     if (rowValue != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
       final MetaObject metaObject = configuration.newMetaObject(rowValue);
+      final RowMappingPlan plan = getRowMappingPlan(rsw, resultMap, metaObject, columnPrefix, shouldApplyAutomaticMappings(resultMap, false));
       boolean foundValues = this.useConstructorMappings;
-      if (shouldApplyAutomaticMappings(resultMap, false)) {
-        foundValues = applyAutomaticMappings(rsw, resultMap, metaObject, columnPrefix) || foundValues;
-      }
-      foundValues = applyPropertyMappings(rsw, resultMap, metaObject, lazyLoader, columnPrefix) || foundValues;
+      foundValues = applyAutomaticMappings(rsw, plan, metaObject) || foundValues;
+      foundValues = applyPropertyMappings(rsw, plan, metaObject, lazyLoader, columnPrefix) || foundValues;
       foundValues = lazyLoader.size() > 0 || foundValues;
       rowValue = foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
     }
@@ -419,31 +480,37 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
 
-  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, CacheKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
+  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, RowKey combinedKey, String columnPrefix, Object partialObject,
+      StreamedRow row) throws SQLException {
     final String resultMapId = resultMap.getId();
     Object rowValue = partialObject;
     if (rowValue != null) {
       final MetaObject metaObject = configuration.newMetaObject(rowValue);
       putAncestor(rowValue, resultMapId);
-      applyNestedResultMappings(rsw, resultMap, metaObject, columnPrefix, combinedKey, false);
+      applyNestedResultMappings(rsw, resultMap, metaObject, columnPrefix, combinedKey, row, false);
       ancestorObjects.remove(resultMapId);
     } else {
+      if (row == null) {
+        // the probe key is reused by the nested result maps
+        combinedKey = combinedKey.copy();
+      }
       final ResultLoaderMap lazyLoader = new ResultLoaderMap();
       rowValue = createResultObject(rsw, resultMap, lazyLoader, columnPrefix);
       if (rowValue != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
         final MetaObject metaObject = configuration.newMetaObject(rowValue);
+        final RowMappingPlan plan = getRowMappingPlan(rsw, resultMap, metaObject, columnPrefix, shouldApplyAutomaticMappings(resultMap, true));
         boolean foundValues = this.useConstructorMappings;
-        if (shouldApplyAutomaticMappings(resultMap, true)) {
-          foundValues = applyAutomaticMappings(rsw, resultMap, metaObject, columnPrefix) || foundValues;
-        }
-        foundValues = applyPropertyMappings(rsw, resultMap, metaObject, lazyLoader, columnPrefix) || foundValues;
+        foundValues = applyAutomaticMappings(rsw, plan, metaObject) || foundValues;
+        foundValues = applyPropertyMappings(rsw, plan, metaObject, lazyLoader, columnPrefix) || foundValues;
         putAncestor(rowValue, resultMapId);
-        foundValues = applyNestedResultMappings(rsw, resultMap, metaObject, columnPrefix, combinedKey, true) || foundValues;
+        foundValues = applyNestedResultMappings(rsw, resultMap, metaObject, columnPrefix, combinedKey, row, true) || foundValues;
         ancestorObjects.remove(resultMapId);
         foundValues = lazyLoader.size() > 0 || foundValues;
         rowValue = foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
       }
-      if (combinedKey != CacheKey.NULL_CACHE_KEY) {
+      if (row != null) {
+        row.value = rowValue;
+      } else if (combinedKey != RowKey.NULL) {
         nestedResultObjects.put(combinedKey, rowValue);
       }
     }
@@ -470,36 +537,26 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // PROPERTY MAPPINGS
   //
 
-  private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, ResultLoaderMap lazyLoader, String columnPrefix)
+  private boolean applyPropertyMappings(ResultSetWrapper rsw, RowMappingPlan plan, MetaObject metaObject, ResultLoaderMap lazyLoader, String columnPrefix)
       throws SQLException {
-    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
     boolean foundValues = false;
-    final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
-    for (ResultMapping propertyMapping : propertyMappings) {
-      String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-      if (propertyMapping.getNestedResultMapId() != null) {
-        // the user added a column attribute to a nested result map, ignore it
-        column = null;
+    for (RowMappingPlan.ColumnMapping mapping : plan.getPropertyMappings()) {
+      Object value = mapping.isColumnValue() ? mapping.getResult(rsw.getResultSet())
+          : getPropertyMappingValue(rsw.getResultSet(), metaObject, mapping.getResultMapping(), lazyLoader, columnPrefix);
+      // issue #541 make property optional
+      final String property = mapping.getProperty();
+      if (property == null) {
+        continue;
+      } else if (value == DEFERRED) {
+        foundValues = true;
+        continue;
       }
-      if (propertyMapping.isCompositeResult()
-          || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
-          || propertyMapping.getResultSet() != null) {
-        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
-        // issue #541 make property optional
-        final String property = propertyMapping.getProperty();
-        if (property == null) {
-          continue;
-        } else if (value == DEFERRED) {
-          foundValues = true;
-          continue;
-        }
-        if (value != null) {
-          foundValues = true;
-        }
-        if (value != null || (configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive())) {
-          // gcode issue #377, call setter on nulls (value is not 'found')
-          metaObject.setValue(property, value);
-        }
+      if (value != null) {
+        foundValues = true;
+      }
+      if (value != null || (configuration.isCallSettersOnNulls() && !mapping.isPrimitive(metaObject))) {
+        // gcode issue #377, call setter on nulls (value is not 'found')
+        mapping.setValue(metaObject, value);
       }
     }
     return foundValues;
@@ -519,18 +576,76 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
-  private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
-    final String mapKey = resultMap.getId() + ":" + columnPrefix;
-    List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
-    if (autoMapping == null) {
-      autoMapping = new ArrayList<>();
-      final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
-      // Remove the entry to release the memory
-      List<String> mappedInConstructorAutoMapping = constructorAutoMappingColumns.remove(mapKey);
-      if (mappedInConstructorAutoMapping != null) {
-        unmappedColumnNames.removeAll(mappedInConstructorAutoMapping);
+  private boolean applyAutomaticMappings(ResultSetWrapper rsw, RowMappingPlan plan, MetaObject metaObject) throws SQLException {
+    boolean foundValues = false;
+    for (RowMappingPlan.ColumnMapping mapping : plan.getAutomaticMappings()) {
+      final Object value = mapping.getResult(rsw.getResultSet());
+      if (value != null) {
+        foundValues = true;
       }
-      for (String columnName : unmappedColumnNames) {
+      if (value != null || (configuration.isCallSettersOnNulls() && !mapping.isPrimitive(metaObject))) {
+        // gcode issue #377, call setter on nulls (value is not 'found')
+        mapping.setValue(metaObject, value);
+      }
+    }
+    return foundValues;
+  }
+
+  //
+  // ROW MAPPING PLANS
+  //
+
+  private RowMappingPlan getRowMappingPlan(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix,
+      boolean automaticMappings) throws SQLException {
+    useResultSet(rsw);
+    final Map<String, RowMappingPlan> plans = MapUtil.computeIfAbsent(rowMappingPlans, resultMap, k -> new HashMap<>());
+    final Class<?> resultType = metaObject.getOriginalObject().getClass();
+    RowMappingPlan plan = plans.get(columnPrefix);
+    if (plan != null && plan.getResultType() == resultType) {
+      return plan;
+    }
+    // Remove the entry to release the memory
+    final List<String> mappedInConstructorAutoMapping = constructorAutoMappingColumns.remove(resultMap.getId() + ":" + columnPrefix);
+    if (automaticMappings && mappedInConstructorAutoMapping != null) {
+      rsw.getUnmappedColumnNames(resultMap, columnPrefix).removeAll(mappedInConstructorAutoMapping);
+    }
+    final RowMappingPlan.Key key = new RowMappingPlan.Key(resultMap, columnPrefix, automaticMappings, resultType, rsw);
+    plan = mappedStatement.getRowMappingPlan(key);
+    if (plan == null) {
+      plan = mappedStatement.addRowMappingPlan(key, compileRowMappingPlan(rsw, resultMap, metaObject, columnPrefix, automaticMappings));
+    }
+    for (RowMappingPlan.UnknownColumn unknownColumn : plan.getUnknownColumns()) {
+      configuration.getAutoMappingUnknownColumnBehavior()
+          .doAction(mappedStatement, unknownColumn.column, unknownColumn.property, unknownColumn.propertyType);
+    }
+    plans.put(columnPrefix, plan);
+    return plan;
+  }
+
+  private void useResultSet(ResultSetWrapper rsw) {
+    if (rowMappingResultSet != rsw) {
+      // each result set has its own columns
+      rowMappingResultSet = rsw;
+      rowMappingPlans.clear();
+      rowKeyColumns.clear();
+    }
+  }
+
+  private boolean hasRowMappingPlan(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) {
+    final Map<String, RowMappingPlan> plans = rowMappingResultSet == rsw ? rowMappingPlans.get(resultMap) : null;
+    return plans != null && plans.containsKey(columnPrefix);
+  }
+
+  private RowMappingPlan compileRowMappingPlan(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix,
+      boolean automaticMappings) throws SQLException {
+    final Class<?> resultType = metaObject.getOriginalObject().getClass();
+    final RowMappingPlan plan = new RowMappingPlan(resultType);
+    // plain properties of beans are set through their setters directly, anything else through the meta object.
+    // subclasses of BeanWrapper may resolve properties differently, so only BeanWrapper itself is bypassed
+    final Reflector reflector = metaObject.getObjectWrapper().getClass() == BeanWrapper.class
+        ? configuration.getReflectorFactory().findForClass(resultType) : null;
+    if (automaticMappings) {
+      for (String columnName : rsw.getUnmappedColumnNames(resultMap, columnPrefix)) {
         String propertyName = columnName;
         if (columnPrefix != null && !columnPrefix.isEmpty()) {
           // When columnPrefix is specified,
@@ -549,37 +664,58 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           final Class<?> propertyType = metaObject.getSetterType(property);
           if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
             final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
-            autoMapping.add(new UnMappedColumnAutoMapping(columnName, property, typeHandler, propertyType.isPrimitive()));
+            plan.addAutomaticMapping(new RowMappingPlan.ColumnMapping(null, columnName, findColumn(rsw, columnName, typeHandler),
+                property, typeHandler, findSetter(reflector, property), propertyType.isPrimitive()));
           } else {
-            configuration.getAutoMappingUnknownColumnBehavior()
-                .doAction(mappedStatement, columnName, property, propertyType);
+            plan.addUnknownColumn(columnName, property, propertyType);
           }
         } else {
-          configuration.getAutoMappingUnknownColumnBehavior()
-              .doAction(mappedStatement, columnName, (property != null) ? property : propertyName, null);
+          plan.addUnknownColumn(columnName, (property != null) ? property : propertyName, null);
         }
       }
-      autoMappingsCache.put(mapKey, autoMapping);
     }
-    return autoMapping;
-  }
-
-  private boolean applyAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
-    List<UnMappedColumnAutoMapping> autoMapping = createAutomaticMappings(rsw, resultMap, metaObject, columnPrefix);
-    boolean foundValues = false;
-    if (!autoMapping.isEmpty()) {
-      for (UnMappedColumnAutoMapping mapping : autoMapping) {
-        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
-        if (value != null) {
-          foundValues = true;
-        }
-        if (value != null || (configuration.isCallSettersOnNulls() && !mapping.primitive)) {
-          // gcode issue #377, call setter on nulls (value is not 'found')
-          metaObject.setValue(mapping.property, value);
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
+      if (propertyMapping.getNestedResultMapId() != null) {
+        // the user added a column attribute to a nested result map, ignore it
+        column = null;
+      }
+      if (propertyMapping.isCompositeResult()
+          || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
+          || propertyMapping.getResultSet() != null) {
+        if (propertyMapping.getNestedQueryId() != null || propertyMapping.getResultSet() != null
+            || propertyMapping.isCompositeResult()) {
+          plan.addPropertyMapping(new RowMappingPlan.ColumnMapping(propertyMapping));
+        } else {
+          final String property = propertyMapping.getProperty();
+          final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
+          final Invoker setter = property == null ? null : findSetter(reflector, property);
+          plan.addPropertyMapping(new RowMappingPlan.ColumnMapping(propertyMapping, column, findColumn(rsw, column, typeHandler),
+              property, typeHandler, setter, setter != null && reflector.getSetterType(property).isPrimitive()));
         }
       }
     }
-    return foundValues;
+    return plan;
+  }
+
+  private Object getResult(ResultSetWrapper rsw, TypeHandler<?> typeHandler, String columnName) throws SQLException {
+    return ResultSetWrapper.getResult(rsw.getResultSet(), typeHandler, columnName, findColumn(rsw, columnName, typeHandler));
+  }
+
+  private int findColumn(ResultSetWrapper rsw, String columnName, TypeHandler<?> typeHandler) {
+    // the type handlers of MyBatis read columns by index as well as by name, custom ones may only read them by name
+    if (!configuration.isUseColumnLabel() || !TypeHandler.class.getPackage().equals(typeHandler.getClass().getPackage())) {
+      return 0;
+    }
+    return rsw.findColumn(columnName);
+  }
+
+  private Invoker findSetter(Reflector reflector, String property) {
+    if (reflector == null || property.indexOf('.') != -1 || property.indexOf('[') != -1 || !reflector.hasSetter(property)) {
+      return null;
+    }
+    return reflector.getSetInvoker(property);
   }
 
   // MULTIPLE RESULT SETS
@@ -686,7 +822,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           value = getRowValue(rsw, resultMap, getColumnPrefix(columnPrefix, constructorMapping));
         } else {
           final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-          value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+          value = getResult(rsw, typeHandler, prependPrefix(column, columnPrefix));
         }
       } catch (ResultMapException | SQLException e) {
         throw new ExecutorException("Could not process result for mapping: " + constructorMapping, e);
@@ -757,7 +893,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       Class<?> parameterType = constructor.getParameterTypes()[i];
       String columnName = rsw.getColumnNames().get(i);
       TypeHandler<?> typeHandler = rsw.getTypeHandler(parameterType, columnName);
-      Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
+      Object value = getResult(rsw, typeHandler, columnName);
       constructorArgTypes.add(parameterType);
       constructorArgs.add(value);
       foundValues = value != null || foundValues;
@@ -778,11 +914,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (columnMatchesParam(columnName, paramName, columnPrefix)) {
           Class<?> paramType = param.getType();
           TypeHandler<?> typeHandler = rsw.getTypeHandler(paramType, columnName);
-          Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
+          Object value = getResult(rsw, typeHandler, columnName);
           constructorArgTypes.add(paramType);
           constructorArgs.add(value);
-          final String mapKey = resultMap.getId() + ":" + columnPrefix;
-          if (!autoMappingsCache.containsKey(mapKey)) {
+          if (!hasRowMappingPlan(rsw, resultMap, columnPrefix)) {
+            final String mapKey = resultMap.getId() + ":" + columnPrefix;
             MapUtil.computeIfAbsent(constructorAutoMappingColumns, mapKey, k -> new ArrayList<>()).add(columnName);
           }
           columnNotFound = false;
@@ -827,7 +963,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       columnName = rsw.getColumnNames().get(0);
     }
     final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
-    return typeHandler.getResult(rsw.getResultSet(), columnName);
+    return getResult(rsw, typeHandler, columnName);
   }
 
   //
@@ -856,8 +992,22 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final String property = propertyMapping.getProperty();
     final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
     final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
-    final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
+    Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
     Object value = null;
+    if (nestedQueryParameterObject != null && propertyMapping.getBatchSize() != null) {
+      if (propertyMapping.isLazy() && property != null) {
+        // the first of these objects whose property is accessed loads it for the others too
+        final BatchResultLoader batch = nextBatch(lazyNestedQueryBatches, nestedQuery, propertyMapping);
+        lazyLoader.addLoader(property, metaResultObject, batch.addLazy(metaResultObject, nestedQueryParameterObject, lazyLoader));
+        return DEFERRED;
+      }
+      if (batchNestedQueries && property != null) {
+        addToNestedQueryBatch(nestedQuery, metaResultObject, propertyMapping, nestedQueryParameterObject);
+        return DEFERRED;
+      }
+      // the nested query expects a list of keys
+      nestedQueryParameterObject = ParamNameResolver.wrapToMapIfCollection(Collections.singletonList(nestedQueryParameterObject), null);
+    }
     if (nestedQueryParameterObject != null) {
       final BoundSql nestedBoundSql = nestedQuery.getBoundSql(nestedQueryParameterObject);
       final CacheKey key = executor.createCacheKey(nestedQuery, nestedQueryParameterObject, RowBounds.DEFAULT, nestedBoundSql);
@@ -878,6 +1028,35 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  private void addToNestedQueryBatch(MappedStatement nestedQuery, MetaObject metaResultObject,
+      ResultMapping propertyMapping, Object nestedQueryParameterObject) throws SQLException {
+    final BatchResultLoader batch = nestedQueryBatches.computeIfAbsent(propertyMapping,
+        k -> new BatchResultLoader(configuration, executor, nestedQuery, propertyMapping));
+    batch.add(metaResultObject, nestedQueryParameterObject);
+    if (batch.size() >= propertyMapping.getBatchSize()) {
+      nestedQueryBatches.remove(propertyMapping);
+      batch.load();
+    }
+  }
+
+  private void loadNestedQueryBatches() throws SQLException {
+    final List<BatchResultLoader> batches = new ArrayList<>(nestedQueryBatches.values());
+    nestedQueryBatches.clear();
+    for (BatchResultLoader batch : batches) {
+      batch.load();
+    }
+  }
+
+  private BatchResultLoader nextBatch(Map<ResultMapping, BatchResultLoader> batches, MappedStatement nestedQuery,
+      ResultMapping propertyMapping) {
+    BatchResultLoader batch = batches.get(propertyMapping);
+    if (batch == null || batch.size() >= propertyMapping.getBatchSize()) {
+      batch = new BatchResultLoader(configuration, executor, nestedQuery, propertyMapping);
+      batches.put(propertyMapping, batch);
+    }
+    return batch;
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -971,7 +1150,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     Object rowValue = previousRowValue;
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+      final RowKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
       Object partialObject = nestedResultObjects.get(rowKey);
       // issue #577 && #542
       if (mappedStatement.isResultOrdered()) {
@@ -979,9 +1158,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           nestedResultObjects.clear();
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
-        rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
+        rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject, null);
       } else {
-        rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
+        rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject, null);
         if (partialObject == null) {
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
@@ -995,11 +1174,39 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  private void handleRowValuesForStreamedResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
+    final DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
+    ResultSet resultSet = rsw.getResultSet();
+    skipRows(resultSet, rowBounds);
+    StreamedRow row = streamedRow;
+    while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
+      final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
+      final RowKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+      if (row != null && row.isSameObject(rowKey)) {
+        getRowValue(rsw, discriminatedResultMap, rowKey, null, row.value, row);
+      } else {
+        // the previous object is complete, as the rows of an object are adjacent
+        if (row != null && row.value != null) {
+          storeObject(resultHandler, resultContext, row.value, parentMapping, resultSet);
+        }
+        row = new StreamedRow(rowKey.copy());
+        getRowValue(rsw, discriminatedResultMap, rowKey, null, null, row);
+      }
+    }
+    if (row != null && row.value != null && shouldProcessMoreRows(resultContext, rowBounds)) {
+      storeObject(resultHandler, resultContext, row.value, parentMapping, resultSet);
+      streamedRow = null;
+    } else {
+      streamedRow = row;
+    }
+  }
+
   //
   // NESTED RESULT MAP (JOIN MAPPING)
   //
 
-  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, CacheKey parentRowKey, boolean newObject) {
+  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, RowKey parentRowKey,
+      StreamedRow parentRow, boolean newObject) {
     boolean foundValues = false;
     for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
       final String nestedResultMapId = resultMapping.getNestedResultMapId();
@@ -1018,13 +1225,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
               continue;
             }
           }
-          final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-          final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
-          Object rowValue = nestedResultObjects.get(combinedKey);
+          final RowKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
+          final RowKey combinedKey;
+          final StreamedRow row;
+          Object rowValue;
+          if (parentRow != null) {
+            // only the object of the previous row can be the same, within the same parent object
+            combinedKey = rowKey;
+            row = parentRow.getChild(resultMapping, rowKey);
+            rowValue = row.value;
+          } else {
+            combinedKey = combineKeys(rowKey, parentRowKey, metaObject);
+            row = null;
+            rowValue = nestedResultObjects.get(combinedKey);
+          }
           boolean knownValue = rowValue != null;
           instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
           if (anyNotNullColumnHasValue(resultMapping, columnPrefix, rsw)) {
-            rowValue = getRowValue(rsw, nestedResultMap, combinedKey, columnPrefix, rowValue);
+            rowValue = getRowValue(rsw, nestedResultMap, combinedKey, columnPrefix, rowValue, row);
             if (rowValue != null && !knownValue) {
               linkObjects(metaObject, resultMapping, rowValue);
               foundValues = true;
@@ -1080,37 +1298,38 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // UNIQUE RESULT KEY
   //
 
-  private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-    final CacheKey cacheKey = new CacheKey();
-    cacheKey.update(resultMap.getId());
-    List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
-    if (resultMappings.isEmpty()) {
-      if (Map.class.isAssignableFrom(resultMap.getType())) {
-        createRowKeyForMap(rsw, cacheKey);
-      } else {
-        createRowKeyForUnmappedProperties(resultMap, rsw, cacheKey, columnPrefix);
-      }
-    } else {
-      createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
-    }
-    if (cacheKey.getUpdateCount() < 2) {
-      return CacheKey.NULL_CACHE_KEY;
+  private RowKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    return rowKey.read(getRowKeyColumns(resultMap, rsw, columnPrefix), rsw.getResultSet());
+  }
+
+  private RowKey combineKeys(RowKey rowKey, RowKey parentRowKey, MetaObject parentObject) {
+    if (rowKey != RowKey.NULL && parentRowKey != RowKey.NULL) {
+      return rowKey.withParent(parentObject.getOriginalObject());
     }
-    return cacheKey;
+    return RowKey.NULL;
   }
 
-  private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
-    if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-      CacheKey combinedKey;
-      try {
-        combinedKey = rowKey.clone();
-      } catch (CloneNotSupportedException e) {
-        throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
+  private RowKey.Columns getRowKeyColumns(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    useResultSet(rsw);
+    final Map<String, RowKey.Columns> columnsByPrefix = MapUtil.computeIfAbsent(rowKeyColumns, resultMap, k -> new HashMap<>());
+    RowKey.Columns columns = columnsByPrefix.get(columnPrefix);
+    if (columns == null) {
+      final List<RowKey.Column> keyColumns = new ArrayList<>();
+      List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
+      if (resultMappings.isEmpty()) {
+        if (Map.class.isAssignableFrom(resultMap.getType())) {
+          addRowKeyColumnsForMap(rsw, keyColumns);
+        } else {
+          addRowKeyColumnsForUnmappedProperties(resultMap, rsw, keyColumns, columnPrefix);
+        }
+        columns = new RowKey.Columns(keyColumns, false);
+      } else {
+        addRowKeyColumnsForMappedProperties(resultMap, rsw, keyColumns, resultMappings, columnPrefix);
+        columns = new RowKey.Columns(keyColumns, configuration.isReturnInstanceForEmptyRow());
       }
-      combinedKey.update(parentRowKey);
-      return combinedKey;
+      columnsByPrefix.put(columnPrefix, columns);
     }
-    return CacheKey.NULL_CACHE_KEY;
+    return columns;
   }
 
   private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
@@ -1121,25 +1340,22 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return resultMappings;
   }
 
-  private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+  private void addRowKeyColumnsForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<RowKey.Column> keyColumns, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+    List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
     for (ResultMapping resultMapping : resultMappings) {
       if (resultMapping.isSimple()) {
         final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
         final TypeHandler<?> th = resultMapping.getTypeHandler();
-        List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
         // Issue #114
         if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
-          final Object value = th.getResult(rsw.getResultSet(), column);
-          if (value != null || configuration.isReturnInstanceForEmptyRow()) {
-            cacheKey.update(column);
-            cacheKey.update(value);
-          }
+          final int index = findColumn(rsw, column, th);
+          keyColumns.add(new RowKey.Column(column, index, th, isIntegralId(rsw, th, index)));
         }
       }
     }
   }
 
-  private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, String columnPrefix) throws SQLException {
+  private void addRowKeyColumnsForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<RowKey.Column> keyColumns, String columnPrefix) throws SQLException {
     final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
     List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
     for (String column : unmappedColumnNames) {
@@ -1153,24 +1369,33 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
       if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
-        String value = rsw.getResultSet().getString(column);
-        if (value != null) {
-          cacheKey.update(column);
-          cacheKey.update(value);
-        }
+        keyColumns.add(new RowKey.Column(column, findStringColumn(rsw, column), null, false));
       }
     }
   }
 
-  private void createRowKeyForMap(ResultSetWrapper rsw, CacheKey cacheKey) throws SQLException {
+  private void addRowKeyColumnsForMap(ResultSetWrapper rsw, List<RowKey.Column> keyColumns) {
     List<String> columnNames = rsw.getColumnNames();
     for (String columnName : columnNames) {
-      final String value = rsw.getResultSet().getString(columnName);
-      if (value != null) {
-        cacheKey.update(columnName);
-        cacheKey.update(value);
-      }
+      keyColumns.add(new RowKey.Column(columnName, findStringColumn(rsw, columnName), null, false));
+    }
+  }
+
+  private int findStringColumn(ResultSetWrapper rsw, String columnName) {
+    return configuration.isUseColumnLabel() ? rsw.findColumn(columnName) : 0;
+  }
+
+  private boolean isIntegralId(ResultSetWrapper rsw, TypeHandler<?> th, int columnIndex) {
+    if (columnIndex == 0 || th == null) {
+      return false;
+    }
+    // the built-in handlers read these columns with getInt or getLong, whose values getLong reads unchanged
+    final JdbcType jdbcType = rsw.getJdbcTypes().get(columnIndex - 1);
+    final boolean intColumn = jdbcType == JdbcType.INTEGER || jdbcType == JdbcType.SMALLINT || jdbcType == JdbcType.TINYINT;
+    if (th.getClass() == IntegerTypeHandler.class) {
+      return intColumn;
     }
+    return th.getClass() == LongTypeHandler.class && (intColumn || jdbcType == JdbcType.BIGINT);
   }
 
   private void linkObjects(MetaObject metaObject, ResultMapping resultMapping, Object rowValue) {
@@ -0,0 +1,107 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Names, JDBC types and class names of the columns of a result set, as read from its metadata. They are cached on the
+ * mapped statement for the SQL that returned them, so that the metadata of the result sets of a statement is read only
+ * once.
+ *
+ * @since 3.5.10
+ */
+public final class ResultSetColumns {
+
+  private final List<String> columnNames;
+  private final List<String> classNames;
+  private final List<JdbcType> jdbcTypes;
+  private final boolean useColumnLabel;
+  private final int hashCode;
+
+  ResultSetColumns(ResultSetMetaData metaData, boolean useColumnLabel) throws SQLException {
+    final int columnCount = metaData.getColumnCount();
+    List<String> columnNames = new ArrayList<>(columnCount);
+    List<String> classNames = new ArrayList<>(columnCount);
+    List<JdbcType> jdbcTypes = new ArrayList<>(columnCount);
+    for (int i = 1; i <= columnCount; i++) {
+      columnNames.add(useColumnLabel ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
+      jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
+      classNames.add(metaData.getColumnClassName(i));
+    }
+    this.columnNames = Collections.unmodifiableList(columnNames);
+    this.classNames = Collections.unmodifiableList(classNames);
+    this.jdbcTypes = Collections.unmodifiableList(jdbcTypes);
+    this.useColumnLabel = useColumnLabel;
+    this.hashCode = 31 * (31 * columnNames.hashCode() + classNames.hashCode()) + jdbcTypes.hashCode();
+  }
+
+  /**
+   * Tells whether these columns can be used for a result set of the same SQL. The same SQL may return other columns,
+   * e.g. after the table was altered or with a {@code SELECT *} on another schema, so every name and type is checked.
+   * Only the class names, which are the costliest to read and follow from the types, are not read again.
+   */
+  boolean matches(ResultSetMetaData metaData, boolean useColumnLabel) throws SQLException {
+    if (this.useColumnLabel != useColumnLabel || columnNames.size() != metaData.getColumnCount()) {
+      return false;
+    }
+    for (int i = 0, n = columnNames.size(); i < n; i++) {
+      String columnName = useColumnLabel ? metaData.getColumnLabel(i + 1) : metaData.getColumnName(i + 1);
+      if (!columnNames.get(i).equals(columnName)
+          || jdbcTypes.get(i) != JdbcType.forCode(metaData.getColumnType(i + 1))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  List<String> getClassNames() {
+    return classNames;
+  }
+
+  List<JdbcType> getJdbcTypes() {
+    return jdbcTypes;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ResultSetColumns)) {
+      return false;
+    }
+    ResultSetColumns other = (ResultSetColumns) o;
+    return hashCode == other.hashCode && columnNames.equals(other.columnNames) && classNames.equals(other.classNames)
+        && jdbcTypes.equals(other.jdbcTypes);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+}
@@ -16,10 +16,8 @@
 package org.apache.ibatis.executor.resultset;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -27,6 +25,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.ibatis.executor.result.ResultMapException;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.session.Configuration;
@@ -43,24 +42,27 @@ public class ResultSetWrapper {
 
   private final ResultSet resultSet;
   private final TypeHandlerRegistry typeHandlerRegistry;
-  private final List<String> columnNames = new ArrayList<>();
-  private final List<String> classNames = new ArrayList<>();
-  private final List<JdbcType> jdbcTypes = new ArrayList<>();
+  private final ResultSetColumns columns;
+  private final List<String> columnNames;
+  private final List<String> classNames;
+  private final List<JdbcType> jdbcTypes;
+  private final Map<String, Integer> columnIndexes = new HashMap<>();
   private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
   private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
   private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
+    this(rs, configuration, new ResultSetColumns(rs.getMetaData(), configuration.isUseColumnLabel()));
+  }
+
+  ResultSetWrapper(ResultSet rs, Configuration configuration, ResultSetColumns columns) {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.resultSet = rs;
-    final ResultSetMetaData metaData = rs.getMetaData();
-    final int columnCount = metaData.getColumnCount();
-    for (int i = 1; i <= columnCount; i++) {
-      columnNames.add(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
-      jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
-      classNames.add(metaData.getColumnClassName(i));
-    }
+    this.columns = columns;
+    this.columnNames = columns.getColumnNames();
+    this.classNames = columns.getClassNames();
+    this.jdbcTypes = columns.getJdbcTypes();
   }
 
   public ResultSet getResultSet() {
@@ -72,20 +74,59 @@ public class ResultSetWrapper {
   }
 
   public List<String> getClassNames() {
-    return Collections.unmodifiableList(classNames);
+    return classNames;
   }
 
   public List<JdbcType> getJdbcTypes() {
     return jdbcTypes;
   }
 
+  ResultSetColumns getColumns() {
+    return columns;
+  }
+
   public JdbcType getJdbcType(String columnName) {
-    for (int i = 0; i < columnNames.size(); i++) {
-      if (columnNames.get(i).equalsIgnoreCase(columnName)) {
-        return jdbcTypes.get(i);
+    final int columnIndex = findColumn(columnName);
+    return columnIndex == 0 ? null : jdbcTypes.get(columnIndex - 1);
+  }
+
+  /**
+   * Finds the column of the result set that has the given name, ignoring case as JDBC drivers do.
+   *
+   * @param columnName
+   *          the column name
+   * @return the index of the first column with that name, starting at 1, or 0 if there is none
+   * @since 3.5.10
+   */
+  public int findColumn(String columnName) {
+    Integer columnIndex = columnIndexes.get(columnName);
+    if (columnIndex == null) {
+      columnIndex = 0;
+      for (int i = 0; i < columnNames.size(); i++) {
+        if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+          columnIndex = i + 1;
+          break;
+        }
       }
+      columnIndexes.put(columnName, columnIndex);
+    }
+    return columnIndex;
+  }
+
+  /**
+   * Reads a column of the current row with a type handler, by its index unless it is 0.
+   */
+  static Object getResult(ResultSet rs, TypeHandler<?> typeHandler, String columnName, int columnIndex)
+      throws SQLException {
+    if (columnIndex == 0) {
+      return typeHandler.getResult(rs, columnName);
+    }
+    try {
+      return typeHandler.getResult(rs, columnIndex);
+    } catch (ResultMapException e) {
+      // read it again by name to report the column name
+      return typeHandler.getResult(rs, columnName);
     }
-    return null;
   }
 
   /**
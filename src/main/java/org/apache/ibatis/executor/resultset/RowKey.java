@@ -0,0 +1,209 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Identifies the object that a row is mapped to by a result map with the values of its id columns, or of all its
+ * columns if it has none, so that the rows of the same object are mapped to a single instance.
+ * <p>
+ * The values of each row are read into a probe key that is reused for every row and only copied when a new object is
+ * stored, and they are hashed into a long as they are read. Integer ids are read and compared as primitive longs. The
+ * key of a nested object refers to the instance of the object it is nested in, which is the same for all the rows of
+ * that object, instead of copying its key.
+ */
+final class RowKey {
+
+  /**
+   * Key of the rows that do not identify an object, each of which is mapped to a new instance.
+   */
+  static final RowKey NULL = new RowKey();
+
+  // marks the values read as primitive longs
+  private static final Object LONG_VALUE = new Object();
+
+  private Columns columns;
+  private Object parent;
+  private Object[] values;
+  private long[] longValues;
+  private int size;
+  private long hash;
+
+  RowKey() {
+    this.values = new Object[0];
+    this.longValues = new long[0];
+  }
+
+  /**
+   * Reads the key of the current row into this probe.
+   *
+   * @return this key, or {@link #NULL} if the row does not identify an object
+   */
+  RowKey read(Columns columns, ResultSet rs) throws SQLException {
+    final int size = columns.columns.length;
+    if (values.length < size) {
+      values = new Object[size];
+      longValues = new long[size];
+    }
+    boolean found = false;
+    long hash = System.identityHashCode(columns);
+    for (int i = 0; i < size; i++) {
+      final Column column = columns.columns[i];
+      if (column.integral) {
+        final long value = rs.getLong(column.index);
+        if (rs.wasNull()) {
+          values[i] = null;
+          hash = 31 * hash;
+        } else {
+          values[i] = LONG_VALUE;
+          longValues[i] = value;
+          hash = 31 * hash + value;
+          found = true;
+        }
+      } else {
+        final Object value = column.read(rs);
+        values[i] = value;
+        hash = 31 * hash + ArrayUtil.hashCode(value);
+        found = found || value != null;
+      }
+    }
+    this.columns = columns;
+    this.parent = null;
+    this.size = size;
+    this.hash = hash;
+    return found || columns.emptyRowKey && size > 0 ? this : NULL;
+  }
+
+  /**
+   * Makes this key relative to the object the row is nested in.
+   */
+  RowKey withParent(Object parent) {
+    this.parent = parent;
+    this.hash = 31 * hash + System.identityHashCode(parent);
+    return this;
+  }
+
+  /**
+   * Copies this probe so that it can be stored.
+   */
+  RowKey copy() {
+    if (this == NULL) {
+      return this;
+    }
+    RowKey copy = new RowKey();
+    copy.columns = columns;
+    copy.parent = parent;
+    copy.values = new Object[size];
+    copy.longValues = new long[size];
+    System.arraycopy(values, 0, copy.values, 0, size);
+    System.arraycopy(longValues, 0, copy.longValues, 0, size);
+    copy.size = size;
+    copy.hash = hash;
+    return copy;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RowKey)) {
+      return false;
+    }
+    RowKey other = (RowKey) o;
+    if (hash != other.hash || columns != other.columns || parent != other.parent || size != other.size) {
+      return false;
+    }
+    // same hash, which may still be a collision
+    for (int i = 0; i < size; i++) {
+      final Object value = values[i];
+      if (value == LONG_VALUE) {
+        if (other.values[i] != LONG_VALUE || longValues[i] != other.longValues[i]) {
+          return false;
+        }
+      } else if (!ArrayUtil.equals(value, other.values[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(hash);
+  }
+
+  /**
+   * Columns that the key of a result map is read from in a result set.
+   */
+  static final class Columns {
+
+    private final Column[] columns;
+    private final boolean emptyRowKey;
+
+    /**
+     * @param columns
+     *          the columns
+     * @param emptyRowKey
+     *          whether a row whose columns are all null still identifies an object
+     */
+    Columns(List<Column> columns, boolean emptyRowKey) {
+      this.columns = columns.toArray(new Column[0]);
+      this.emptyRowKey = emptyRowKey;
+    }
+
+  }
+
+  static final class Column {
+
+    private final String name;
+    private final int index;
+    private final TypeHandler<?> typeHandler;
+    private final boolean integral;
+
+    /**
+     * @param name
+     *          the column name
+     * @param index
+     *          the column index, or 0 to read the column by name
+     * @param typeHandler
+     *          the type handler, or null to read the column as a string
+     * @param integral
+     *          whether the column can be read as a primitive long instead
+     */
+    Column(String name, int index, TypeHandler<?> typeHandler, boolean integral) {
+      this.name = name;
+      this.index = index;
+      this.typeHandler = typeHandler;
+      this.integral = integral;
+    }
+
+    Object read(ResultSet rs) throws SQLException {
+      if (typeHandler != null) {
+        return ResultSetWrapper.getResult(rs, typeHandler, name, index);
+      }
+      return index == 0 ? rs.getString(name) : rs.getString(index);
+    }
+
+  }
+
+}
@@ -0,0 +1,201 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Mapping of the columns of a result set to the properties of the objects of a result map. It is compiled once for a
+ * result map, column prefix, result type and set of columns, and cached on the mapped statement, so that mapping a row
+ * reads columns by index and calls setters directly, without looking up columns, type handlers or properties by name.
+ *
+ * @since 3.5.10
+ */
+public final class RowMappingPlan {
+
+  private final Class<?> resultType;
+  private final List<ColumnMapping> automaticMappings = new ArrayList<>();
+  private final List<ColumnMapping> propertyMappings = new ArrayList<>();
+  private final List<UnknownColumn> unknownColumns = new ArrayList<>();
+
+  RowMappingPlan(Class<?> resultType) {
+    this.resultType = resultType;
+  }
+
+  Class<?> getResultType() {
+    return resultType;
+  }
+
+  List<ColumnMapping> getAutomaticMappings() {
+    return automaticMappings;
+  }
+
+  List<ColumnMapping> getPropertyMappings() {
+    return propertyMappings;
+  }
+
+  List<UnknownColumn> getUnknownColumns() {
+    return unknownColumns;
+  }
+
+  void addAutomaticMapping(ColumnMapping mapping) {
+    automaticMappings.add(mapping);
+  }
+
+  void addPropertyMapping(ColumnMapping mapping) {
+    propertyMappings.add(mapping);
+  }
+
+  void addUnknownColumn(String column, String property, Class<?> propertyType) {
+    unknownColumns.add(new UnknownColumn(column, property, propertyType));
+  }
+
+  static final class ColumnMapping {
+
+    private final ResultMapping resultMapping;
+    private final String column;
+    private final int columnIndex;
+    private final String property;
+    private final TypeHandler<?> typeHandler;
+    private final Invoker setter;
+    private final boolean primitive;
+
+    /**
+     * A mapping whose value is not read from a column, but from a nested query or another result set.
+     */
+    ColumnMapping(ResultMapping resultMapping) {
+      this(resultMapping, null, 0, resultMapping.getProperty(), null, null, false);
+    }
+
+    ColumnMapping(ResultMapping resultMapping, String column, int columnIndex, String property,
+        TypeHandler<?> typeHandler, Invoker setter, boolean primitive) {
+      this.resultMapping = resultMapping;
+      this.column = column;
+      this.columnIndex = columnIndex;
+      this.property = property;
+      this.typeHandler = typeHandler;
+      this.setter = setter;
+      this.primitive = primitive;
+    }
+
+    ResultMapping getResultMapping() {
+      return resultMapping;
+    }
+
+    String getProperty() {
+      return property;
+    }
+
+    boolean isColumnValue() {
+      return typeHandler != null;
+    }
+
+    Object getResult(ResultSet rs) throws SQLException {
+      return ResultSetWrapper.getResult(rs, typeHandler, column, columnIndex);
+    }
+
+    boolean isPrimitive(MetaObject metaObject) {
+      return setter != null || resultMapping == null ? primitive : metaObject.getSetterType(property).isPrimitive();
+    }
+
+    void setValue(MetaObject metaObject, Object value) {
+      if (setter == null) {
+        metaObject.setValue(property, value);
+        return;
+      }
+      Object object = metaObject.getOriginalObject();
+      try {
+        setter.invoke(object, new Object[] { value });
+      } catch (Throwable t) {
+        Throwable cause = ExceptionUtil.unwrapThrowable(t);
+        throw new ReflectionException("Could not set property '" + property + "' of '" + object.getClass()
+            + "' with value '" + value + "' Cause: " + cause.toString(), cause);
+      }
+    }
+
+  }
+
+  static final class UnknownColumn {
+
+    final String column;
+    final String property;
+    final Class<?> propertyType;
+
+    UnknownColumn(String column, String property, Class<?> propertyType) {
+      this.column = column;
+      this.property = property;
+      this.propertyType = propertyType;
+    }
+
+  }
+
+  static final class Key {
+
+    private final ResultMap resultMap;
+    private final String columnPrefix;
+    private final boolean automaticMappings;
+    private final Class<?> resultType;
+    private final ResultSetColumns columns;
+    private final int hashCode;
+
+    Key(ResultMap resultMap, String columnPrefix, boolean automaticMappings, Class<?> resultType, ResultSetWrapper rsw) {
+      this.resultMap = resultMap;
+      this.columnPrefix = columnPrefix;
+      this.automaticMappings = automaticMappings;
+      this.resultType = resultType;
+      this.columns = rsw.getColumns();
+      int hash = System.identityHashCode(resultMap);
+      hash = 31 * hash + (columnPrefix == null ? 0 : columnPrefix.hashCode());
+      hash = 31 * hash + Boolean.hashCode(automaticMappings);
+      hash = 31 * hash + resultType.hashCode();
+      hash = 31 * hash + columns.hashCode();
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return resultMap == other.resultMap && automaticMappings == other.automaticMappings
+          && resultType == other.resultType && hashCode == other.hashCode
+          && (columnPrefix == null ? other.columnPrefix == null : columnPrefix.equals(other.columnPrefix))
+          && columns.equals(other.columns);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+  }
+
+}
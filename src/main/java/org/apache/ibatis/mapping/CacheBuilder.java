@@ -24,13 +24,21 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheMetrics;
+import org.apache.ibatis.cache.CacheTagIndex;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SingleFlightCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -38,6 +46,8 @@ import org.apache.ibatis.reflection.SystemMetaObject;
  * @author Clinton Begin
  */
 public class CacheBuilder {
+  private static final Log log = LogFactory.getLog(CacheBuilder.class);
+
   private final String id;
   private Class<? extends Cache> implementation;
   private final List<Class<? extends Cache>> decorators;
@@ -46,6 +56,9 @@ public class CacheBuilder {
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private boolean singleFlight;
+  private CacheMetrics metrics;
+  private CacheTagIndex tagIndex;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -84,6 +97,39 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder singleFlight(boolean singleFlight) {
+    this.singleFlight = singleFlight;
+    return this;
+  }
+
+  /**
+   * Sets the metrics that the cache and its decorators record to. Caches and decorators that record metrics have a
+   * {@code metrics} property of type {@link CacheMetrics}.
+   *
+   * @param metrics
+   *          the metrics
+   * @return this builder
+   * @since 3.5.10
+   */
+  public CacheBuilder metrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * Sets the tag index that keeps track of the tags of the cache entries. The index only decorates caches built on
+   * {@link PerpetualCache}.
+   *
+   * @param tagIndex
+   *          the tag index
+   * @return this builder
+   * @since 3.5.10
+   */
+  public CacheBuilder tagIndex(CacheTagIndex tagIndex) {
+    this.tagIndex = tagIndex;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -93,19 +139,40 @@ public class CacheBuilder {
     setDefaultImplementations();
     Cache cache = newBaseCacheInstance(implementation, id);
     setCacheProperties(cache);
+    setMetrics(cache);
     // issue #352, do not apply decorators to custom caches
     if (PerpetualCache.class.equals(cache.getClass())) {
+      if (tagIndex != null) {
+        // below the eviction decorators so that evicted entries leave the index
+        cache = tagIndex.decorate(cache);
+      }
       for (Class<? extends Cache> decorator : decorators) {
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
+        setMetrics(cache);
       }
-      cache = setStandardDecorators(cache);
+      cache = setStandardDecorators(cache, true);
+    } else if (ConcurrentCache.class.equals(cache.getClass()) || OffHeapCache.class.equals(cache.getClass())) {
+      // evicts and synchronizes on its own
+      warnIgnoredEviction(cache);
+      cache = setStandardDecorators(cache, false);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
+      setMetrics(cache);
     }
     return cache;
   }
 
+  private void warnIgnoredEviction(Cache cache) {
+    // LRU is the default eviction of a cache element, so it is not reported
+    for (Class<? extends Cache> decorator : decorators) {
+      if (!LruCache.class.equals(decorator)) {
+        log.warn("The eviction " + decorator.getSimpleName() + " of the cache " + id + " is ignored, as "
+            + cache.getClass().getSimpleName() + " evicts entries on its own.");
+      }
+    }
+  }
+
   private void setDefaultImplementations() {
     if (implementation == null) {
       implementation = PerpetualCache.class;
@@ -115,23 +182,41 @@ public class CacheBuilder {
     }
   }
 
-  private Cache setStandardDecorators(Cache cache) {
+  private Cache setStandardDecorators(Cache cache, boolean synchronize) {
     try {
+      // an off heap cache always returns copies
+      boolean copies = cache instanceof OffHeapCache;
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
       }
       if (clearInterval != null) {
-        cache = new ScheduledCache(cache);
-        ((ScheduledCache) cache).setClearInterval(clearInterval);
+        if (isEntryExpiration()) {
+          cache = new ExpiringCache(cache);
+          ((ExpiringCache) cache).setTimeToLive(clearInterval);
+          setCacheProperties(cache);
+        } else {
+          cache = new ScheduledCache(cache);
+          ((ScheduledCache) cache).setClearInterval(clearInterval);
+        }
+        setMetrics(cache);
       }
-      if (readWrite) {
+      if (readWrite && !copies) {
         cache = new SerializedCache(cache);
+        setMetrics(cache);
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
-      if (blocking) {
+      setMetrics(cache);
+      if (synchronize) {
+        cache = new SynchronizedCache(cache);
+      }
+      if (singleFlight) {
+        cache = new SingleFlightCache(cache);
+        ((SingleFlightCache) cache).setCopyValues(readWrite);
+        setMetrics(cache);
+      } else if (blocking) {
         cache = new BlockingCache(cache);
+        setMetrics(cache);
       }
       return cache;
     } catch (Exception e) {
@@ -139,6 +224,10 @@ public class CacheBuilder {
     }
   }
 
+  private boolean isEntryExpiration() {
+    return properties != null && "entry".equalsIgnoreCase(properties.getProperty("expiration"));
+  }
+
   private void setCacheProperties(Cache cache) {
     if (properties != null) {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
@@ -186,6 +275,15 @@ public class CacheBuilder {
     }
   }
 
+  private void setMetrics(Cache cache) {
+    if (metrics != null) {
+      MetaObject metaCache = SystemMetaObject.forObject(cache);
+      if (metaCache.hasSetter("metrics") && CacheMetrics.class.equals(metaCache.getSetterType("metrics"))) {
+        metaCache.setValue("metrics", metrics);
+      }
+    }
+  }
+
   private Cache newBaseCacheInstance(Class<? extends Cache> cacheClass, String id) {
     Constructor<? extends Cache> cacheConstructor = getBaseCacheConstructor(cacheClass);
     try {
@@ -16,13 +16,23 @@
 package org.apache.ibatis.mapping;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.resultset.ResultSetColumns;
+import org.apache.ibatis.executor.resultset.RowMappingPlan;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
@@ -33,6 +43,9 @@ import org.apache.ibatis.session.Configuration;
  */
 public final class MappedStatement {
 
+  private static final int MAX_ROW_MAPPING_PLANS = 64;
+  private static final int MAX_RESULT_SET_COLUMNS = 64;
+
   private String resource;
   private Configuration configuration;
   private String id;
@@ -47,6 +60,7 @@ public final class MappedStatement {
   private boolean flushCacheRequired;
   private boolean useCache;
   private boolean resultOrdered;
+  private boolean resultStreamed;
   private SqlCommandType sqlCommandType;
   private KeyGenerator keyGenerator;
   private String[] keyProperties;
@@ -56,6 +70,12 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  private Map<String, String> cacheTags;
+  private Integer batchSize;
+  private Integer batchByteSize;
+  private final ConcurrentMap<Object, RowMappingPlan> rowMappingPlans = new ConcurrentHashMap<>();
+  private final ConcurrentMap<List<Object>, ResultSetColumns> resultSetColumns = new ConcurrentHashMap<>();
+  private volatile Boolean hasNestedQueries;
 
   MappedStatement() {
     // constructor disabled
@@ -144,6 +164,20 @@ public final class MappedStatement {
       return this;
     }
 
+    /**
+     * Sets whether the rows of each object of the nested results are adjacent, so that only the objects of the current
+     * row are kept in memory.
+     *
+     * @param resultStreamed
+     *          true if the rows are ordered by the ids of the results, then by those of the nested results
+     * @return the builder
+     * @since 3.5.10
+     */
+    public Builder resultStreamed(boolean resultStreamed) {
+      mappedStatement.resultStreamed = resultStreamed;
+      return this;
+    }
+
     public Builder keyGenerator(KeyGenerator keyGenerator) {
       mappedStatement.keyGenerator = keyGenerator;
       return this;
@@ -174,6 +208,62 @@ public final class MappedStatement {
       return this;
     }
 
+    /**
+     * Sets the tags of the second level cache entries this statement reads or invalidates, as a comma separated list of
+     * {@code name=property} pairs, where the property is read from the parameter object. A single {@code property}
+     * is the same as {@code property=property}.
+     *
+     * @param cacheTags
+     *          the cache tags
+     * @return the builder
+     * @since 3.5.10
+     */
+    public Builder cacheTags(String cacheTags) {
+      String[] tags = delimitedStringToArray(cacheTags);
+      if (tags == null) {
+        mappedStatement.cacheTags = null;
+        return this;
+      }
+      Map<String, String> map = new LinkedHashMap<>();
+      for (String tag : tags) {
+        int separator = tag.indexOf('=');
+        String name = (separator < 0 ? tag : tag.substring(0, separator)).trim();
+        String property = (separator < 0 ? tag : tag.substring(separator + 1)).trim();
+        if (name.isEmpty() || property.isEmpty()) {
+          throw new BuilderException("Invalid cache tag '" + tag + "' in statement " + mappedStatement.id);
+        }
+        map.put(name, property);
+      }
+      mappedStatement.cacheTags = Collections.unmodifiableMap(map);
+      return this;
+    }
+
+    /**
+     * Sets the number of rows after which the batch executor flushes the batch of this statement.
+     *
+     * @param batchSize
+     *          the batch size, or null to use the default batch size
+     * @return the builder
+     * @since 3.5.10
+     */
+    public Builder batchSize(Integer batchSize) {
+      mappedStatement.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * Sets the estimated size of the parameters after which the batch executor flushes the batch of this statement.
+     *
+     * @param batchByteSize
+     *          the batch size in bytes, or null to use the default batch byte size
+     * @return the builder
+     * @since 3.5.10
+     */
+    public Builder batchByteSize(Integer batchByteSize) {
+      mappedStatement.batchByteSize = batchByteSize;
+      return this;
+    }
+
     /**
      * Resul sets.
      *
@@ -222,6 +312,24 @@ public final class MappedStatement {
     return hasNestedResultMaps;
   }
 
+  /**
+   * Returns whether the results of this statement are mapped with nested select statements, either directly or through
+   * nested result maps and discriminator cases.
+   *
+   * @return true if mapping the results of this statement may run nested queries
+   * @since 3.5.10
+   */
+  public boolean hasNestedQueries() {
+    Boolean nestedQueries = hasNestedQueries;
+    if (nestedQueries == null) {
+      // result maps can reference each other in any order, resolve once the configuration is complete
+      Set<String> visited = new HashSet<>();
+      nestedQueries = resultMaps.stream().anyMatch(resultMap -> hasNestedQueries(resultMap, visited));
+      hasNestedQueries = nestedQueries;
+    }
+    return nestedQueries;
+  }
+
   public Integer getFetchSize() {
     return fetchSize;
   }
@@ -266,6 +374,16 @@ public final class MappedStatement {
     return resultOrdered;
   }
 
+  /**
+   * Returns whether the rows of each object of the nested results are adjacent.
+   *
+   * @return true if only the objects of the current row are kept in memory
+   * @since 3.5.10
+   */
+  public boolean isResultStreamed() {
+    return resultStreamed;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -290,6 +408,36 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Gets the tags of the second level cache entries this statement reads or invalidates.
+   *
+   * @return the parameter properties the tag values are read from, by tag name, or null if the statement has no tags
+   * @since 3.5.10
+   */
+  public Map<String, String> getCacheTags() {
+    return cacheTags;
+  }
+
+  /**
+   * Gets the number of rows after which the batch executor flushes the batch of this statement.
+   *
+   * @return the batch size, or null if not set
+   * @since 3.5.10
+   */
+  public Integer getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Gets the estimated size of the parameters after which the batch executor flushes the batch of this statement.
+   *
+   * @return the batch size in bytes, or null if not set
+   * @since 3.5.10
+   */
+  public Integer getBatchByteSize() {
+    return batchByteSize;
+  }
+
   /**
    * Gets the resul sets.
    *
@@ -322,6 +470,101 @@ public final class MappedStatement {
     return boundSql;
   }
 
+  /**
+   * Gets the row mapping plan compiled for the results of this statement.
+   *
+   * @param key
+   *          the result map, column prefix, result type and columns the plan was compiled for
+   * @return the row mapping plan, or null if none was compiled yet
+   * @since 3.5.10
+   */
+  public RowMappingPlan getRowMappingPlan(Object key) {
+    return rowMappingPlans.get(key);
+  }
+
+  /**
+   * Caches a row mapping plan compiled for the results of this statement. Only a limited number of plans are kept, so
+   * that statements whose columns vary with their parameters do not fill the memory.
+   *
+   * @param key
+   *          the result map, column prefix, result type and columns the plan was compiled for
+   * @param plan
+   *          the row mapping plan
+   * @return the plan compiled first for the same key, which may have been compiled concurrently
+   * @since 3.5.10
+   */
+  public RowMappingPlan addRowMappingPlan(Object key, RowMappingPlan plan) {
+    if (rowMappingPlans.size() >= MAX_ROW_MAPPING_PLANS) {
+      return plan;
+    }
+    RowMappingPlan cached = rowMappingPlans.putIfAbsent(key, plan);
+    return cached != null ? cached : plan;
+  }
+
+  /**
+   * Gets the columns of a result set returned by this statement.
+   *
+   * @param sql
+   *          the SQL that returned the result set
+   * @param resultSetIndex
+   *          the index of the result set, starting at 0
+   * @return the columns read from the metadata of the result set, or null if it was not read yet
+   * @since 3.5.10
+   */
+  public ResultSetColumns getResultSetColumns(String sql, int resultSetIndex) {
+    return resultSetColumns.get(Arrays.asList(sql, resultSetIndex));
+  }
+
+  /**
+   * Caches the columns of a result set returned by this statement, replacing those cached before for the same SQL.
+   * Only the columns of a limited number of SQL strings are kept, so that dynamic SQL does not fill the memory.
+   *
+   * @param sql
+   *          the SQL that returned the result set
+   * @param resultSetIndex
+   *          the index of the result set, starting at 0
+   * @param columns
+   *          the columns read from the metadata of the result set
+   * @since 3.5.10
+   */
+  public void putResultSetColumns(String sql, int resultSetIndex, ResultSetColumns columns) {
+    List<Object> key = Arrays.asList(sql, resultSetIndex);
+    if (resultSetColumns.size() < MAX_RESULT_SET_COLUMNS || resultSetColumns.containsKey(key)) {
+      resultSetColumns.put(key, columns);
+    }
+  }
+
+  private boolean hasNestedQueries(ResultMap resultMap, Set<String> visited) {
+    if (!visited.add(resultMap.getId())) {
+      return false;
+    }
+    if (resultMap.hasNestedQueries()) {
+      return true;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (resultMapping.getNestedResultMapId() != null && hasNestedQueries(resultMapping.getNestedResultMapId(), visited)) {
+        return true;
+      }
+    }
+    Discriminator discriminator = resultMap.getDiscriminator();
+    if (discriminator != null) {
+      for (String resultMapId : discriminator.getDiscriminatorMap().values()) {
+        if (hasNestedQueries(resultMapId, visited)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean hasNestedQueries(String resultMapId, Set<String> visited) {
+    if (!configuration.hasResultMap(resultMapId)) {
+      // cannot tell, assume it has
+      return true;
+    }
+    return hasNestedQueries(configuration.getResultMap(resultMapId), visited);
+  }
+
   private static String[] delimitedStringToArray(String in) {
     if (in == null || in.trim().length() == 0) {
       return null;
@@ -45,6 +45,7 @@ public class ResultMapping {
   private String resultSet;
   private String foreignColumn;
   private boolean lazy;
+  private Integer batchSize;
 
   ResultMapping() {
   }
@@ -132,6 +133,19 @@ public class ResultMapping {
       return this;
     }
 
+    /**
+     * Sets the number of parent rows whose nested select is run at once.
+     *
+     * @param batchSize
+     *          the batch size, or null to run the nested select once per row
+     * @return this builder
+     * @since 3.5.10
+     */
+    public Builder batchSize(Integer batchSize) {
+      resultMapping.batchSize = batchSize;
+      return this;
+    }
+
     public ResultMapping build() {
       // lock down collections
       resultMapping.flags = Collections.unmodifiableList(resultMapping.flags);
@@ -154,6 +168,9 @@ public class ResultMapping {
       if (resultMapping.nestedResultMapId == null && resultMapping.column == null && resultMapping.composites.isEmpty()) {
         throw new IllegalStateException("Mapping is missing column attribute for property " + resultMapping.property);
       }
+      if (resultMapping.batchSize != null && resultMapping.nestedQueryId == null) {
+        throw new IllegalStateException("A batchSize requires a nested select in property " + resultMapping.property);
+      }
       if (resultMapping.getResultSet() != null) {
         int numColumns = 0;
         if (resultMapping.column != null) {
@@ -251,6 +268,16 @@ public class ResultMapping {
     this.lazy = lazy;
   }
 
+  /**
+   * Gets the number of parent rows whose nested select is run at once, with the list of their keys as parameter.
+   *
+   * @return the batch size, or null if the nested select is run once per row
+   * @since 3.5.10
+   */
+  public Integer getBatchSize() {
+    return batchSize;
+  }
+
   public boolean isSimple() {
     return this.nestedResultMapId == null && this.nestedQueryId == null && this.resultSet == null;
   }
@@ -298,6 +325,7 @@ public class ResultMapping {
     sb.append(", resultSet='").append(resultSet).append('\'');
     sb.append(", foreignColumn='").append(foreignColumn).append('\'');
     sb.append(", lazy=").append(lazy);
+    sb.append(", batchSize=").append(batchSize);
     sb.append('}');
     return sb.toString();
   }
@@ -0,0 +1,152 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Invokes a getter or a setter through an accessor generated with {@link LambdaMetafactory} the first time it is
+ * invoked, which the JIT compiler can inline unlike {@link Method#invoke}. Primitive values are unboxed by the
+ * generated accessor itself.
+ * <p>
+ * Falls back to reflection when no accessor can be generated, e.g. for a class in a module that is not open to
+ * MyBatis.
+ *
+ * @since 3.5.10
+ */
+public class LambdaMethodInvoker implements Invoker {
+
+  private static final int ALLOWED_MODES = MethodHandles.Lookup.PRIVATE | MethodHandles.Lookup.PROTECTED
+      | MethodHandles.Lookup.PACKAGE | MethodHandles.Lookup.PUBLIC;
+  private static final Constructor<Lookup> lookupConstructor;
+  private static final Method privateLookupInMethod;
+
+  private final Method method;
+  private final MethodInvoker methodInvoker;
+  private BiConsumer<Object, Object> setter;
+  private Function<Object, Object> getter;
+  private volatile boolean generated;
+
+  static {
+    Method privateLookupIn;
+    try {
+      privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+    } catch (NoSuchMethodException e) {
+      privateLookupIn = null;
+    }
+    privateLookupInMethod = privateLookupIn;
+
+    Constructor<Lookup> lookup = null;
+    if (privateLookupInMethod == null) {
+      // JDK 1.8
+      try {
+        lookup = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+        lookup.setAccessible(true);
+      } catch (Exception e) {
+        lookup = null;
+      }
+    }
+    lookupConstructor = lookup;
+  }
+
+  public LambdaMethodInvoker(Method method) {
+    this.method = method;
+    this.methodInvoker = new MethodInvoker(method);
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    if (!generated) {
+      generate();
+    }
+    try {
+      if (setter != null) {
+        setter.accept(target, args[0]);
+        return null;
+      } else if (getter != null) {
+        return getter.apply(target);
+      }
+    } catch (Throwable t) {
+      // same contract as Method#invoke
+      throw new InvocationTargetException(t);
+    }
+    return methodInvoker.invoke(target, args);
+  }
+
+  @Override
+  public Class<?> getType() {
+    return methodInvoker.getType();
+  }
+
+  private void generate() {
+    // racing threads may both generate an accessor, either one will do
+    try {
+      if (!Modifier.isStatic(method.getModifiers())) {
+        Lookup lookup = privateLookupIn(method.getDeclaringClass());
+        if (lookup != null) {
+          MethodHandle handle = lookup.unreflect(method);
+          if (method.getParameterTypes().length == 1) {
+            setter = generateSetter(lookup, handle);
+          } else if (method.getParameterTypes().length == 0) {
+            getter = generateGetter(lookup, handle);
+          }
+        }
+      }
+    } catch (Throwable t) {
+      // falls back to reflection
+    }
+    generated = true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private BiConsumer<Object, Object> generateSetter(Lookup lookup, MethodHandle handle) throws Throwable {
+    Class<?> valueType = MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType();
+    CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+        MethodType.methodType(void.class, Object.class, Object.class), handle,
+        MethodType.methodType(void.class, method.getDeclaringClass(), valueType));
+    return (BiConsumer<Object, Object>) callSite.getTarget().invoke();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Function<Object, Object> generateGetter(Lookup lookup, MethodHandle handle) throws Throwable {
+    Class<?> valueType = MethodType.methodType(method.getReturnType()).wrap().returnType();
+    CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+        MethodType.methodType(Object.class, Object.class), handle,
+        MethodType.methodType(valueType, method.getDeclaringClass()));
+    return (Function<Object, Object>) callSite.getTarget().invoke();
+  }
+
+  private static Lookup privateLookupIn(Class<?> declaringClass) throws ReflectiveOperationException {
+    if (privateLookupInMethod != null) {
+      return (Lookup) privateLookupInMethod.invoke(null, declaringClass, MethodHandles.lookup());
+    } else if (lookupConstructor != null) {
+      return lookupConstructor.newInstance(declaringClass, ALLOWED_MODES);
+    }
+    return null;
+  }
+
+}
@@ -25,6 +25,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,10 +40,14 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheMetricsRegistry;
+import org.apache.ibatis.cache.CacheTagIndex;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
@@ -116,6 +126,7 @@ public class Configuration {
   protected boolean shrinkWhitespacesInSql;
   protected boolean nullableOnForEach;
   protected boolean argNameBasedConstructorAutoMapping;
+  protected boolean groupBatchStatements;
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
@@ -126,6 +137,13 @@ public class Configuration {
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected Integer defaultBatchSize;
+  protected Integer defaultBatchByteSize;
+  protected Integer multiRowInsertSize;
+  protected Integer batchConnections;
+  protected int asyncPoolSize = 10;
+  protected volatile java.util.concurrent.Executor asyncExecutor;
+  protected volatile java.util.concurrent.Executor batchFlushExecutor;
   protected ResultSetType defaultResultSetType;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
@@ -153,11 +171,13 @@ public class Configuration {
   protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry(this);
   protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
   protected final LanguageDriverRegistry languageRegistry = new LanguageDriverRegistry();
+  protected final CacheMetricsRegistry cacheMetricsRegistry = new CacheMetricsRegistry();
 
   protected final Map<String, MappedStatement> mappedStatements = new StrictMap<MappedStatement>("Mapped Statements collection")
       .conflictMessageProducer((savedValue, targetValue) ->
           ". please check " + savedValue.getResource() + " and " + targetValue.getResource());
   protected final Map<String, Cache> caches = new StrictMap<>("Caches collection");
+  protected final Map<String, CacheTagIndex> cacheTagIndexes = new HashMap<>();
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
@@ -191,6 +211,8 @@ public class Configuration {
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+    typeAliasRegistry.registerAlias("CONCURRENT", ConcurrentCache.class);
+    typeAliasRegistry.registerAlias("OFFHEAP", OffHeapCache.class);
     typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
@@ -329,6 +351,81 @@ public class Configuration {
     this.argNameBasedConstructorAutoMapping = argNameBasedConstructorAutoMapping;
   }
 
+  /**
+   * Returns whether the batch executor adds a row to the open batch of the same statement and sql, even if other
+   * statements were batched in between.
+   *
+   * <p>Default is {@code false}.
+   *
+   * @return If rows are grouped by statement, {@code true}
+   * @since 3.5.10
+   */
+  public boolean isGroupBatchStatements() {
+    return groupBatchStatements;
+  }
+
+  /**
+   * Sets whether the batch executor adds a row to the open batch of the same statement and sql, even if other
+   * statements were batched in between. Batches are executed in the order they were opened.
+   *
+   * @param groupBatchStatements If rows are grouped by statement, set to {@code true}
+   * @since 3.5.10
+   */
+  public void setGroupBatchStatements(boolean groupBatchStatements) {
+    this.groupBatchStatements = groupBatchStatements;
+  }
+
+  /**
+   * Returns the number of rows the batch executor sends in one statement when it rewrites the rows batched for an
+   * {@code INSERT ... VALUES (...)} statement into multi-row {@code VALUES (...), (...)} statements.
+   *
+   * @return the multi-row insert size, or null if inserts are not rewritten
+   * @since 3.5.10
+   */
+  public Integer getMultiRowInsertSize() {
+    return multiRowInsertSize;
+  }
+
+  /**
+   * Sets the number of rows the batch executor sends in one statement when it rewrites the rows batched for an
+   * {@code INSERT ... VALUES (...)} statement into multi-row {@code VALUES (...), (...)} statements. The rows are bound
+   * when the batch is flushed, so their parameter objects must not be modified before.
+   *
+   * @param multiRowInsertSize
+   *          the multi-row insert size, null or 0 not to rewrite inserts
+   * @since 3.5.10
+   */
+  public void setMultiRowInsertSize(Integer multiRowInsertSize) {
+    this.multiRowInsertSize = multiRowInsertSize;
+  }
+
+  /**
+   * Returns the number of connections the batch executor spreads its batches across when the session auto-commits.
+   *
+   * @return the batch connections, or null if batches are executed on the connection of the session only
+   * @since 3.5.10
+   */
+  public Integer getBatchConnections() {
+    return batchConnections;
+  }
+
+  /**
+   * Sets the number of connections the batch executor spreads its batches across when the session auto-commits. Each
+   * new batch is prepared on the next of these connections, the session's own one and others opened from the data
+   * source of the environment, and flushed batches are executed on the batch flush executor, each connection running its
+   * own batches in order while the session goes on batching on another one. Batches on different connections may be
+   * executed in any order, and are not part of one transaction, so this is only meant for bulk loads of independent rows.
+   * Sessions that do not auto-commit execute their batches on their own connection as usual.
+   *
+   * @param batchConnections
+   *          the batch connections, null or 1 to use the connection of the session only
+   * @since 3.5.10
+   * @see #getBatchFlushExecutor()
+   */
+  public void setBatchConnections(Integer batchConnections) {
+    this.batchConnections = batchConnections;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -510,6 +607,150 @@ public class Configuration {
     this.defaultFetchSize = defaultFetchSize;
   }
 
+  /**
+   * Gets the default number of rows after which the batch executor flushes a batch.
+   *
+   * @return the default batch size, or null if batches are only flushed explicitly
+   * @since 3.5.10
+   */
+  public Integer getDefaultBatchSize() {
+    return defaultBatchSize;
+  }
+
+  /**
+   * Sets the default number of rows after which the batch executor flushes a batch.
+   *
+   * @param defaultBatchSize
+   *          the new default batch size
+   * @since 3.5.10
+   */
+  public void setDefaultBatchSize(Integer defaultBatchSize) {
+    this.defaultBatchSize = defaultBatchSize;
+  }
+
+  /**
+   * Gets the default estimated size of the parameters, in bytes, after which the batch executor flushes a batch.
+   *
+   * @return the default batch byte size, or null if batches are only flushed explicitly
+   * @since 3.5.10
+   */
+  public Integer getDefaultBatchByteSize() {
+    return defaultBatchByteSize;
+  }
+
+  /**
+   * Sets the default estimated size of the parameters, in bytes, after which the batch executor flushes a batch.
+   *
+   * @param defaultBatchByteSize
+   *          the new default batch byte size
+   * @since 3.5.10
+   */
+  public void setDefaultBatchByteSize(Integer defaultBatchByteSize) {
+    this.defaultBatchByteSize = defaultBatchByteSize;
+  }
+
+  /**
+   * Gets the number of threads of the default executor that runs asynchronous queries.
+   *
+   * @return the async pool size
+   * @since 3.5.10
+   */
+  public int getAsyncPoolSize() {
+    return asyncPoolSize;
+  }
+
+  /**
+   * Sets the number of threads of the default executor that runs asynchronous queries. Each running query holds a
+   * connection, so this should not exceed the size of the connection pool.
+   *
+   * @param asyncPoolSize
+   *          the new async pool size
+   * @since 3.5.10
+   */
+  public void setAsyncPoolSize(int asyncPoolSize) {
+    this.asyncPoolSize = asyncPoolSize;
+  }
+
+  /**
+   * Gets the executor that runs the queries of mapper methods returning a {@link java.util.concurrent.CompletableFuture}
+   * and the queries submitted without an executor. Unless one was set, a pool of {@link #getAsyncPoolSize()} daemon
+   * threads is created on first use.
+   *
+   * @return the async executor
+   * @since 3.5.10
+   */
+  public java.util.concurrent.Executor getAsyncExecutor() {
+    if (asyncExecutor == null) {
+      synchronized (this) {
+        if (asyncExecutor == null) {
+          asyncExecutor = newAsyncExecutor();
+        }
+      }
+    }
+    return asyncExecutor;
+  }
+
+  /**
+   * Sets the executor that runs asynchronous queries, e.g. one shared with the rest of the application.
+   *
+   * @param asyncExecutor
+   *          the new async executor
+   * @since 3.5.10
+   */
+  public void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Gets the executor that executes the batches flushed on {@link #getBatchConnections()} connections. It is separate
+   * from the async executor, so that batches are not held up by queued queries, nor queries by batches. Unless one was
+   * set, a pool of daemon threads is created on first use, which starts a thread whenever all of its threads are busy.
+   * Each of its tasks holds one of the connections of a batch session, so their number is bounded by the data source.
+   *
+   * @return the batch flush executor
+   * @since 3.5.10
+   */
+  public java.util.concurrent.Executor getBatchFlushExecutor() {
+    if (batchFlushExecutor == null) {
+      synchronized (this) {
+        if (batchFlushExecutor == null) {
+          batchFlushExecutor = newDaemonExecutor(0, Integer.MAX_VALUE, new SynchronousQueue<>(), "mybatis-batch-");
+        }
+      }
+    }
+    return batchFlushExecutor;
+  }
+
+  /**
+   * Sets the executor that executes the batches flushed on {@link #getBatchConnections()} connections. It must not run
+   * the batches on the thread that submits them, nor queue them behind tasks that wait for a batch session.
+   *
+   * @param batchFlushExecutor
+   *          the new batch flush executor
+   * @since 3.5.10
+   */
+  public void setBatchFlushExecutor(java.util.concurrent.Executor batchFlushExecutor) {
+    this.batchFlushExecutor = batchFlushExecutor;
+  }
+
+  private java.util.concurrent.Executor newAsyncExecutor() {
+    return newDaemonExecutor(asyncPoolSize, asyncPoolSize, new LinkedBlockingQueue<>(), "mybatis-async-");
+  }
+
+  private static java.util.concurrent.Executor newDaemonExecutor(int corePoolSize, int maximumPoolSize,
+      BlockingQueue<Runnable> workQueue, String threadNamePrefix) {
+    final AtomicInteger threadNumber = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(corePoolSize, maximumPoolSize, 60L, TimeUnit.SECONDS,
+        workQueue, runnable -> {
+          Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    // idle threads go away, so that an unused pool does not keep any
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   /**
    * Gets the default result set type.
    *
@@ -583,6 +824,16 @@ public class Configuration {
     return typeAliasRegistry;
   }
 
+  /**
+   * Gets the registry of the metrics of the second level caches.
+   *
+   * @return the cache metrics registry
+   * @since 3.5.10
+   */
+  public CacheMetricsRegistry getCacheMetricsRegistry() {
+    return cacheMetricsRegistry;
+  }
+
   /**
    * Gets the mapper registry.
    *
@@ -754,6 +1005,31 @@ public class Configuration {
     return caches.containsKey(id);
   }
 
+  /**
+   * Registers the tag index of a second level cache.
+   *
+   * @param id
+   *          the cache id
+   * @param tagIndex
+   *          the tag index
+   * @since 3.5.10
+   */
+  public void addCacheTagIndex(String id, CacheTagIndex tagIndex) {
+    cacheTagIndexes.put(id, tagIndex);
+  }
+
+  /**
+   * Gets the tag index of a second level cache.
+   *
+   * @param id
+   *          the cache id
+   * @return the tag index, or null if the cache has none
+   * @since 3.5.10
+   */
+  public CacheTagIndex getCacheTagIndex(String id) {
+    return cacheTagIndexes.get(id);
+  }
+
   public void addResultMap(ResultMap rm) {
     resultMaps.put(rm.getId(), rm);
     checkLocallyForDiscriminatedNestedResultMaps(rm);
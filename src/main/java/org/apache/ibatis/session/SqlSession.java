@@ -19,9 +19,13 @@ import java.io.Closeable;
 import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.BatchResultHandler;
 
 /**
  * The primary Java interface for working with MyBatis.
@@ -257,6 +261,63 @@ public interface SqlSession extends Closeable {
    */
   List<BatchResult> flushStatements();
 
+  /**
+   * Sets the handler that receives the result of each batch as soon as it is executed, when the batch is flushed
+   * explicitly or automatically because it reached its batch size. The results are then no longer returned by
+   * {@link #flushStatements()}, so that they do not pile up in memory during bulk loads.
+   *
+   * @param batchResultHandler
+   *          the handler, or null to return the results from {@link #flushStatements()}
+   * @since 3.5.10
+   */
+  default void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    throw new UnsupportedOperationException("This session does not support batch result handlers.");
+  }
+
+  /**
+   * Runs a query concurrently with this session, in a session of its own on another connection, using the given
+   * executor. See {@link SqlSessionFactory#submitQuery(Function, Executor)}.
+   * <p>
+   * Changes this session has not committed yet are not visible to other connections. So while there are any, the query
+   * runs on this session instead, before this method returns, so that it gets the same result as if it had been
+   * called directly.
+   * <p>
+   * Sessions that cannot open another session run the query on themselves, before this method returns.
+   *
+   * @param <T>
+   *          the type of the result
+   * @param query
+   *          the query, which is given the session to run on
+   * @param executor
+   *          the executor that runs the query
+   * @return a future completed with the result of the query, or with the exception it threw
+   * @since 3.5.10
+   */
+  default <T> CompletableFuture<T> submitQuery(Function<SqlSession, T> query, Executor executor) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      future.complete(query.apply(this));
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+    }
+    return future;
+  }
+
+  /**
+   * Runs a query concurrently with this session, using the {@link Configuration#getAsyncExecutor() async executor} of
+   * the configuration. See {@link #submitQuery(Function, Executor)}.
+   *
+   * @param <T>
+   *          the type of the result
+   * @param query
+   *          the query, which is given the session to run on
+   * @return a future completed with the result of the query, or with the exception it threw
+   * @since 3.5.10
+   */
+  default <T> CompletableFuture<T> submitQuery(Function<SqlSession, T> query) {
+    return submitQuery(query, getConfiguration().getAsyncExecutor());
+  }
+
   /**
    * Closes the session.
    */
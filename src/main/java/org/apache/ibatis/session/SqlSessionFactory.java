@@ -16,6 +16,9 @@
 package org.apache.ibatis.session;
 
 import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /**
  * Creates an {@link SqlSession} out of a connection or a DataSource
@@ -42,4 +45,46 @@ public interface SqlSessionFactory {
 
   Configuration getConfiguration();
 
+  /**
+   * Runs a query in a session of its own, on its own connection, using the given executor. Several queries submitted
+   * this way run concurrently, so that the time they take does not add up. The session is committed once the query
+   * returns, so that the results it loaded are put in the second level cache, and then closed.
+   * <p>
+   * Any executor may be used, for example a thread pool, or on recent JVMs an executor that starts a virtual thread
+   * per task.
+   *
+   * @param <T>
+   *          the type of the result
+   * @param query
+   *          the query, which is given the session to run on
+   * @param executor
+   *          the executor that runs the query
+   * @return a future completed with the result of the query, or with the exception it threw
+   * @since 3.5.10
+   */
+  default <T> CompletableFuture<T> submitQuery(Function<SqlSession, T> query, Executor executor) {
+    return CompletableFuture.supplyAsync(() -> {
+      try (SqlSession session = openSession()) {
+        T result = query.apply(session);
+        session.commit();
+        return result;
+      }
+    }, executor);
+  }
+
+  /**
+   * Runs a query in a session of its own, using the {@link Configuration#getAsyncExecutor() async executor} of the
+   * configuration. See {@link #submitQuery(Function, Executor)}.
+   *
+   * @param <T>
+   *          the type of the result
+   * @param query
+   *          the query, which is given the session to run on
+   * @return a future completed with the result of the query, or with the exception it threw
+   * @since 3.5.10
+   */
+  default <T> CompletableFuture<T> submitQuery(Function<SqlSession, T> query) {
+    return submitQuery(query, getConfiguration().getAsyncExecutor());
+  }
+
 }
@@ -24,9 +24,13 @@ import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.BatchResultHandler;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
 /**
@@ -324,6 +328,29 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSession.flushStatements();
   }
 
+  @Override
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    final SqlSession sqlSession = localSqlSession.get();
+    if (sqlSession == null) {
+      throw new SqlSessionException("Error:  Cannot set batch result handler.  No managed session is started.");
+    }
+    sqlSession.setBatchResultHandler(batchResultHandler);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> submitQuery(Function<SqlSession, T> query, Executor executor) {
+    final SqlSession sqlSession = localSqlSession.get();
+    if (sqlSession == null) {
+      return sqlSessionFactory.submitQuery(query, executor);
+    }
+    return sqlSession.submitQuery(query, executor);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> submitQuery(Function<SqlSession, T> query) {
+    return submitQuery(query, getConfiguration().getAsyncExecutor());
+  }
+
   @Override
   public void close() {
     final SqlSession sqlSession = localSqlSession.get();
@@ -22,12 +22,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.BatchResultHandler;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
@@ -38,6 +41,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 
 /**
  * The default implementation for {@link SqlSession}.
@@ -49,14 +53,34 @@ public class DefaultSqlSession implements SqlSession {
 
   private final Configuration configuration;
   private final Executor executor;
+  private final SqlSessionFactory sqlSessionFactory;
 
   private final boolean autoCommit;
   private boolean dirty;
   private List<Cursor<?>> cursorList;
 
   public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
+    this(configuration, executor, autoCommit, null);
+  }
+
+  /**
+   * Creates a session whose submitted queries run in sessions opened by the given factory.
+   *
+   * @param configuration
+   *          the configuration
+   * @param executor
+   *          the executor
+   * @param autoCommit
+   *          whether the session auto-commits
+   * @param sqlSessionFactory
+   *          the factory that opened this session, or null to open sessions from the environment of the configuration
+   * @since 3.5.10
+   */
+  public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit,
+      SqlSessionFactory sqlSessionFactory) {
     this.configuration = configuration;
     this.executor = executor;
+    this.sqlSessionFactory = sqlSessionFactory;
     this.dirty = false;
     this.autoCommit = autoCommit;
   }
@@ -243,6 +267,28 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    executor.setBatchResultHandler(batchResultHandler);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> submitQuery(Function<SqlSession, T> query, java.util.concurrent.Executor executor) {
+    if (isCommitOrRollbackRequired(false)) {
+      // other connections cannot see the changes this session has not committed yet
+      CompletableFuture<T> future = new CompletableFuture<>();
+      try {
+        future.complete(query.apply(this));
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+      return future;
+    }
+    SqlSessionFactory factory = sqlSessionFactory != null ? sqlSessionFactory
+        : new DefaultSqlSessionFactory(configuration);
+    return factory.submitQuery(query, executor);
+  }
+
   @Override
   public List<BatchResult> flushStatements() {
     try {
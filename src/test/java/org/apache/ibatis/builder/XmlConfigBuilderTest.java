@@ -105,6 +105,10 @@ class XmlConfigBuilderTest {
       assertThat(config.isArgNameBasedConstructorAutoMapping()).isFalse();
       assertThat(config.getDefaultSqlProviderType()).isNull();
       assertThat(config.isNullableOnForEach()).isFalse();
+      assertThat(config.isGroupBatchStatements()).isFalse();
+      assertThat(config.getAsyncPoolSize()).isEqualTo(10);
+      assertThat(config.getMultiRowInsertSize()).isNull();
+      assertThat(config.getBatchConnections()).isNull();
     }
   }
 
@@ -204,6 +208,10 @@ class XmlConfigBuilderTest {
       assertThat(config.isArgNameBasedConstructorAutoMapping()).isTrue();
       assertThat(config.getDefaultSqlProviderType().getName()).isEqualTo(MySqlProvider.class.getName());
       assertThat(config.isNullableOnForEach()).isTrue();
+      assertThat(config.isGroupBatchStatements()).isTrue();
+      assertThat(config.getAsyncPoolSize()).isEqualTo(4);
+      assertThat(config.getMultiRowInsertSize()).isEqualTo(100);
+      assertThat(config.getBatchConnections()).isEqualTo(4);
 
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blog")).isEqualTo(Blog.class);
@@ -22,7 +22,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
@@ -106,6 +109,39 @@ class CacheKeyTest {
     assertEquals(cacheKey.hashCode(), clonedCacheKey.hashCode());
   }
 
+  @Test
+  void shouldGrowBeyondInitialCapacity() {
+    CacheKey small = new CacheKey(1);
+    CacheKey large = new CacheKey(20);
+    for (int i = 0; i < 20; i++) {
+      small.update(i);
+      large.update(i);
+    }
+    assertEquals(20, small.getUpdateCount());
+    assertEquals(small, large);
+    assertEquals(small.hashCode(), large.hashCode());
+    assertEquals(small.toString(), large.toString());
+  }
+
+  @Test
+  void shouldNotShareUpdatesWithClone() throws Exception {
+    CacheKey cacheKey = new CacheKey(new Object[] { 1, "hello" });
+    CacheKey clonedCacheKey = cacheKey.clone();
+    cacheKey.update("world");
+    clonedCacheKey.update("there");
+    assertNotEquals(cacheKey, clonedCacheKey);
+    assertEquals(new CacheKey(new Object[] { 1, "hello", "there" }), clonedCacheKey);
+  }
+
+  @Test
+  void shouldTestChecksumsNotEqualDueToOrder() {
+    CacheKey key1 = new CacheKey(new Object[] { 1, 2 });
+    CacheKey key2 = new CacheKey(new Object[] { 2, 1 });
+    String checksum1 = key1.toString().split(":")[1];
+    String checksum2 = key2.toString().split(":")[1];
+    assertNotEquals(checksum1, checksum2);
+  }
+
   @Test
   void serializationExceptionTest() {
     CacheKey cacheKey = new CacheKey();
@@ -122,6 +158,44 @@ class CacheKeyTest {
     assertEquals(cacheKey, serialize(cacheKey));
   }
 
+  @Test
+  void shouldKeepSerializedFormOfListBasedKeys() throws Exception {
+    ObjectStreamClass descriptor = ObjectStreamClass.lookup(CacheKey.class);
+    assertEquals(1146682552656046210L, descriptor.getSerialVersionUID());
+    assertEquals(List.class, descriptor.getField("updateList").getType());
+    CacheKey cacheKey = new CacheKey(1);
+    for (int i = 0; i < 10; i++) {
+      cacheKey.update(i);
+    }
+    CacheKey copy = serialize(cacheKey);
+    assertEquals(cacheKey, copy);
+    assertEquals(cacheKey.hashCode(), copy.hashCode());
+    copy.update("more");
+    assertEquals(11, copy.getUpdateCount());
+  }
+
+  @Test
+  void shouldReadKeysSerializedByListBasedImplementation() throws Exception {
+    // new CacheKey(new Object[] { "select * from author where id = ?", 101, null, new byte[] { 1, 2 } }) as serialized
+    // by the list based implementation, whose checksum was the sum of the hash codes
+    String serialized =
+        "rO0ABXNyACBvcmcuYXBhY2hlLmliYXRpcy5jYWNoZS5DYWNoZUtleQ/p1bTNM6iCAgAFSgAIY2hlY2tzdW1JAAVjb3VudEkACGhh"
+        + "c2hjb2RlSQAKbXVsdGlwbGllckwACnVwZGF0ZUxpc3R0ABBMamF2YS91dGlsL0xpc3Q7eHD/////oMxGEQAAAAQA3ue3AAAAJXNy"
+        + "ABNqYXZhLnV0aWwuQXJyYXlMaXN0eIHSHZnHYZ0DAAFJAARzaXpleHAAAAAEdwQAAAAEdAAhc2VsZWN0ICogZnJvbSBhdXRob3Ig"
+        + "d2hlcmUgaWQgPSA/c3IAEWphdmEubGFuZy5JbnRlZ2VyEuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyV"
+        + "HQuU4IsCAAB4cAAAAGVwdXIAAltCrPMX+AYIVOACAAB4cAAAAAIBAng=";
+    CacheKey expected = new CacheKey(
+        new Object[] { "select * from author where id = ?", 101, null, new byte[] { 1, 2 } });
+    CacheKey cacheKey;
+    byte[] bytes = Base64.getDecoder().decode(serialized);
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      cacheKey = (CacheKey) in.readObject();
+    }
+    assertEquals(expected, cacheKey);
+    assertEquals(expected.hashCode(), cacheKey.hashCode());
+    assertEquals(expected.toString(), cacheKey.toString());
+  }
+
   private static <T> T serialize(T object) throws Exception {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
       new ObjectOutputStream(baos).writeObject(object);
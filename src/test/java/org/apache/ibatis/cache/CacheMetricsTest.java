@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class CacheMetricsTest {
+
+  @Test
+  void shouldRecordHitsMissesPutsAndEvictions() {
+    CacheMetrics metrics = new CacheMetrics("test");
+    Cache cache = new CacheBuilder("test").implementation(PerpetualCache.class).addDecorator(LruCache.class).size(2)
+        .metrics(metrics).build();
+    cache.putObject(1, "one");
+    cache.putObject(2, "two");
+    cache.putObject(3, "three");
+    assertNull(cache.getObject(1));
+    assertEquals("three", cache.getObject(3));
+    assertEquals(3, metrics.getPuts());
+    assertEquals(1, metrics.getEvictions());
+    assertEquals(1, metrics.getHits());
+    assertEquals(1, metrics.getMisses());
+    assertEquals(2, metrics.getRequests());
+    assertEquals(0.5, metrics.getHitRatio());
+  }
+
+  @Test
+  void shouldRecordFifoEvictions() {
+    CacheMetrics metrics = new CacheMetrics("test");
+    Cache cache = new CacheBuilder("test").implementation(PerpetualCache.class).addDecorator(FifoCache.class).size(1)
+        .metrics(metrics).build();
+    cache.putObject(1, "one");
+    cache.putObject(2, "two");
+    assertEquals(1, metrics.getEvictions());
+  }
+
+  @Test
+  void shouldRecordSerializationTime() {
+    CacheMetrics metrics = new CacheMetrics("test");
+    Cache cache = new CacheBuilder("test").readWrite(true).metrics(metrics).build();
+    cache.putObject(1, "one");
+    assertEquals("one", cache.getObject(1));
+    assertTrue(metrics.getSerializationTime() > 0);
+  }
+
+  @Test
+  void shouldRecordScheduledClears() throws Exception {
+    CacheMetrics metrics = new CacheMetrics("test");
+    Cache cache = new CacheBuilder("test").clearInterval(100L).metrics(metrics).build();
+    cache.putObject(1, "one");
+    Thread.sleep(200);
+    assertNull(cache.getObject(1));
+    assertEquals(1, metrics.getScheduledClears());
+  }
+
+  @Test
+  void shouldResetCounters() {
+    CacheMetrics metrics = new CacheMetrics("test");
+    metrics.recordHit();
+    metrics.recordBlockingWait(100);
+    metrics.reset();
+    assertEquals(0, metrics.getHits());
+    assertEquals(0, metrics.getBlockingWaits());
+    assertEquals(0, metrics.getBlockingWaitTime());
+    assertEquals(0, metrics.getHitRatio());
+  }
+
+  @Test
+  void shouldRegisterMetricsOfNamespaceCaches() {
+    Configuration configuration = new Configuration();
+    MapperBuilderAssistant assistant = new MapperBuilderAssistant(configuration, "resource");
+    assistant.setCurrentNamespace("org.example.Mapper");
+    Cache cache = assistant.useNewCache(null, null, null, null, false, false, null);
+    cache.putObject(1, "one");
+    cache.getObject(1);
+
+    CacheMetrics metrics = configuration.getCacheMetricsRegistry().getMetrics("org.example.Mapper");
+    assertNotNull(metrics);
+    assertEquals(1, metrics.getPuts());
+    assertEquals(1, metrics.getHits());
+    assertSame(metrics, configuration.getCacheMetricsRegistry().getAllMetrics().get("org.example.Mapper"));
+    assertNull(configuration.getCacheMetricsRegistry().getMetrics("org.example.Other"));
+  }
+
+}
@@ -0,0 +1,210 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheTagIndexTest {
+
+  private CacheTagIndex tagIndex;
+  private Cache cache;
+
+  @BeforeEach
+  void setUp() {
+    tagIndex = new CacheTagIndex();
+    tagIndex.enable();
+    cache = new CacheBuilder("test").implementation(PerpetualCache.class).addDecorator(LruCache.class).size(2)
+        .tagIndex(tagIndex).build();
+  }
+
+  @Test
+  void shouldInvalidateOnlyEntriesWithTheSameTagValue() {
+    TransactionalCache txCache = newTransactionalCache();
+    txCache.putObject("blog1", "one", tags("id", "1"));
+    txCache.putObject("blog2", "two", tags("id", "2"));
+    txCache.commit();
+
+    txCache.invalidate(tags("id", "1"));
+    txCache.commit();
+    assertNull(cache.getObject("blog1"));
+    assertEquals("two", cache.getObject("blog2"));
+  }
+
+  @Test
+  void shouldInvalidateEntriesWithoutTags() {
+    TransactionalCache txCache = newTransactionalCache();
+    txCache.putObject("all", "everything");
+    txCache.putObject("author", "someone", tags("author", "1"));
+    txCache.commit();
+
+    txCache.invalidate(tags("id", "1"));
+    txCache.commit();
+    assertNull(cache.getObject("all"));
+    assertNull(cache.getObject("author"));
+  }
+
+  @Test
+  void shouldHideInvalidatedEntriesUntilCommit() {
+    TransactionalCache txCache = newTransactionalCache();
+    txCache.putObject("blog1", "one", tags("id", "1"));
+    txCache.putObject("blog2", "two", tags("id", "2"));
+    txCache.commit();
+
+    txCache.invalidate(tags("id", "1"));
+    assertNull(txCache.getObject("blog1"));
+    assertEquals("two", txCache.getObject("blog2"));
+    assertEquals("one", cache.getObject("blog1"));
+
+    txCache.rollback();
+    assertEquals("one", txCache.getObject("blog1"));
+  }
+
+  @Test
+  void shouldDropPendingEntriesOnInvalidation() {
+    TransactionalCache txCache = newTransactionalCache();
+    txCache.putObject("blog1", "one", tags("id", "1"));
+    txCache.putObject("blog2", "two", tags("id", "2"));
+    txCache.invalidate(tags("id", "1"));
+    txCache.commit();
+    assertNull(cache.getObject("blog1"));
+    assertEquals("two", cache.getObject("blog2"));
+  }
+
+  @Test
+  void shouldForgetEvictedEntries() {
+    TransactionalCache txCache = newTransactionalCache();
+    txCache.putObject("blog1", "one", tags("id", "1"));
+    txCache.putObject("blog2", "two", tags("id", "2"));
+    txCache.putObject("blog3", "three", tags("id", "3"));
+    txCache.commit();
+    assertEquals(2, tagIndex.getInvalidatedKeys(Collections.singletonList(Collections.emptyMap())).size());
+  }
+
+  @Test
+  void shouldClearWithoutTagIndex() {
+    TransactionalCache txCache = new TransactionalCache(cache);
+    txCache.putObject("blog2", "two");
+    txCache.commit();
+    txCache.invalidate(tags("id", "1"));
+    txCache.commit();
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldMissEntriesPutBeforeTheIndexWasEnabled() {
+    CacheTagIndex disabledIndex = new CacheTagIndex();
+    Cache cache = new CacheBuilder("test").tagIndex(disabledIndex).build();
+    cache.putObject("blog1", "one");
+    assertEquals("one", cache.getObject("blog1"));
+    disabledIndex.enable();
+    assertNull(cache.getObject("blog1"));
+  }
+
+  @Test
+  void shouldNotDecorateCustomCaches() {
+    CacheTagIndex index = new CacheTagIndex();
+    new CacheBuilder("test").implementation(CustomCache.class).tagIndex(index).build();
+    assertFalse(index.isDecorated());
+  }
+
+  @Test
+  void shouldLookUpInvalidatedKeysByTag() {
+    TransactionalCache txCache = newTransactionalCache();
+    Map<String, Object> blogAndAuthor = new HashMap<>();
+    blogAndAuthor.put("id", 1L);
+    blogAndAuthor.put("author", 7L);
+    txCache.putObject("blog1ByAuthor", "one", blogAndAuthor);
+    txCache.putObject("author7", "seven", tags("author", 7L));
+    txCache.commit();
+    assertEquals(2, tagIndex.getInvalidatedKeys(Collections.singletonList(tags("id", 1L))).size());
+    assertEquals(Collections.singletonList("author7"),
+        tagIndex.getInvalidatedKeys(Collections.singletonList(tags("id", 2L))));
+    assertEquals(2, tagIndex.getInvalidatedKeys(Collections.singletonList(tags("author", 7L))).size());
+    assertEquals(0, tagIndex.getInvalidatedKeys(Collections.singletonList(tags("author", 8L))).size());
+  }
+
+  @Test
+  void shouldCompareIntegralTagValuesByValue() {
+    assertEquals(CacheTagIndex.tagValue(1), CacheTagIndex.tagValue(1L));
+    assertNotEquals(CacheTagIndex.tagValue(1), CacheTagIndex.tagValue("1"));
+  }
+
+  @Test
+  void shouldIndexTagsOnlyWhenStatementsDeclareThem() {
+    Configuration configuration = new Configuration();
+    MapperBuilderAssistant untagged = new MapperBuilderAssistant(configuration, "untagged.xml");
+    untagged.setCurrentNamespace("untagged");
+    untagged.useNewCache(null, null, null, null, true, false, false, false, null);
+    assertNull(configuration.getCacheTagIndex("untagged"));
+    MapperBuilderAssistant tagged = new MapperBuilderAssistant(configuration, "tagged.xml");
+    tagged.setCurrentNamespace("tagged");
+    tagged.useNewCache(null, null, null, null, true, false, false, true, null);
+    assertNotNull(configuration.getCacheTagIndex("tagged"));
+  }
+
+  @Test
+  void shouldParseCacheTags() {
+    Configuration configuration = new Configuration();
+    MappedStatement ms = new MappedStatement.Builder(configuration, "update", new StaticSqlSource(configuration, "sql"),
+        SqlCommandType.UPDATE).cacheTags("id, author=author.id").build();
+    Map<String, String> expected = new HashMap<>();
+    expected.put("id", "id");
+    expected.put("author", "author.id");
+    assertEquals(expected, ms.getCacheTags());
+  }
+
+  @Test
+  void shouldRejectEmptyCacheTag() {
+    Configuration configuration = new Configuration();
+    MappedStatement.Builder builder = new MappedStatement.Builder(configuration, "update",
+        new StaticSqlSource(configuration, "sql"), SqlCommandType.UPDATE);
+    assertThrows(BuilderException.class, () -> builder.cacheTags("id,=name"));
+  }
+
+  private TransactionalCache newTransactionalCache() {
+    TransactionalCache txCache = new TransactionalCache(cache);
+    txCache.setTagIndex(tagIndex);
+    return txCache;
+  }
+
+  private static Map<String, Object> tags(String name, Object value) {
+    return Collections.singletonMap(name, value);
+  }
+
+  public static class CustomCache extends PerpetualCache {
+    public CustomCache(String id) {
+      super(id);
+    }
+  }
+
+}
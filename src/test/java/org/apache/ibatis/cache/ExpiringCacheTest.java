@@ -0,0 +1,123 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+  @Test
+  void shouldExpireEachEntryOnItsOwn() throws Exception {
+    ExpiringCache expiringCache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    expiringCache.setTimeToLive(3000);
+    Cache cache = new LoggingCache(expiringCache);
+    cache.putObject(0, 0);
+    Thread.sleep(2000);
+    cache.putObject(1, 1);
+    Thread.sleep(2000);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    assertEquals(1, cache.getSize());
+    Thread.sleep(2000);
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldRestartTimeToLiveWhenPutAgain() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(3000);
+    cache.putObject(0, 0);
+    Thread.sleep(2000);
+    cache.putObject(0, 0);
+    Thread.sleep(2000);
+    assertEquals(0, cache.getObject(0));
+  }
+
+  @Test
+  void shouldRefreshAheadOnlyOnce() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(60000);
+    cache.setRefreshAhead(60000);
+    cache.putObject(0, 0);
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(0));
+    assertEquals(0, CompletableFuture.supplyAsync(() -> cache.getObject(0)).get());
+    cache.putObject(0, 1);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldForgetEntriesEvictedByDelegate() throws Exception {
+    LruCache lruCache = new LruCache(new PerpetualCache("DefaultCache"));
+    lruCache.setSize(1);
+    CacheMetrics metrics = new CacheMetrics("test");
+    ExpiringCache cache = new ExpiringCache(lruCache);
+    cache.setTimeToLive(3000);
+    cache.setMetrics(metrics);
+    cache.putObject(0, 0);
+    cache.putObject(1, 1);
+    assertNull(cache.getObject(0));
+    Thread.sleep(3500);
+    assertNull(cache.getObject(1));
+    assertEquals(1, metrics.getExpirations());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldBuildWithEntryExpiration() throws Exception {
+    Properties props = new Properties();
+    props.setProperty("expiration", "entry");
+    CacheMetrics metrics = new CacheMetrics("test");
+    Cache cache = new CacheBuilder("test").clearInterval(100L).properties(props).metrics(metrics).build();
+    cache.putObject(0, 0);
+    Thread.sleep(200);
+    assertNull(cache.getObject(0));
+    assertEquals(1, metrics.getExpirations());
+    assertEquals(0, metrics.getScheduledClears());
+  }
+
+}
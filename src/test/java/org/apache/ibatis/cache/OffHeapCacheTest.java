@@ -0,0 +1,142 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfCachedObjects() {
+    Cache cache = new OffHeapCache("default");
+    List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.putObject(0, list);
+    list.add("c");
+    @SuppressWarnings("unchecked")
+    List<String> cached = (List<String>) cache.getObject(0);
+    assertEquals(Arrays.asList("a", "b"), cached);
+    cached.add("d");
+    assertEquals(Arrays.asList("a", "b"), cache.getObject(0));
+    assertNotSame(cache.getObject(0), cache.getObject(0));
+  }
+
+  @Test
+  void shouldStoreObjectsLargerThanOneBlock() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setBlockSize(16);
+    char[] chars = new char[1000];
+    Arrays.fill(chars, 'x');
+    String value = new String(chars);
+    cache.putObject(0, value);
+    assertEquals(value, cache.getObject(0));
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedWhenOutOfMemory() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setBlockSize(128);
+    cache.setCapacity(5 * 128);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(5, cache.getSize());
+    assertEquals(0, cache.getObject(0));
+    cache.putObject(5, 5);
+    assertEquals(0, cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertEquals(5, cache.getObject(5));
+    assertEquals(5, cache.getSize());
+  }
+
+  @Test
+  void shouldNotCacheObjectsLargerThanCapacity() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setBlockSize(16);
+    cache.setCapacity(64);
+    cache.putObject(0, new byte[1000]);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldReplaceValueOfExistingKey() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.putObject(0, "a");
+    cache.putObject(0, "b");
+    assertEquals("b", cache.getObject(0));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+  }
+
+  @Test
+  void shouldUseCustomSerializer() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSerializer(StringSerializer.class.getName());
+    cache.putObject(0, "hello");
+    assertEquals("hello!", cache.getObject(0));
+  }
+
+  @Test
+  void shouldFailOnNonSerializableObject() {
+    Cache cache = new OffHeapCache("default");
+    assertThrows(CacheException.class, () -> cache.putObject(0, new Object()));
+  }
+
+  public static class StringSerializer implements CacheSerializer {
+
+    @Override
+    public byte[] serialize(Object object) {
+      return object.toString().getBytes();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+      return new String(bytes) + "!";
+    }
+
+  }
+
+}
@@ -0,0 +1,159 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.decorators.SingleFlightCache;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightCacheTest {
+
+  @Test
+  void shouldLoadOnceForConcurrentMisses() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Future<Object> leader = executor.submit(() -> cache.getObject("key", () -> {
+        loads.incrementAndGet();
+        loading.countDown();
+        release.await();
+        return "value";
+      }));
+      loading.await();
+      List<Future<Object>> followers = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        followers.add(executor.submit(() -> cache.getObject("key", () -> {
+          loads.incrementAndGet();
+          return "other";
+        })));
+      }
+      Thread.sleep(100);
+      release.countDown();
+      assertEquals("value", leader.get(10, TimeUnit.SECONDS));
+      for (Future<Object> follower : followers) {
+        assertEquals("value", follower.get(10, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+      // put by the transaction of the loader on commit only
+      assertNull(cache.getObject("key"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldPropagateFailedLoadToWaiters() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Object> leader = executor.submit(() -> cache.getObject("key", () -> {
+        loading.countDown();
+        release.await();
+        throw new SQLException("failed");
+      }));
+      loading.await();
+      Future<Object> follower = executor.submit(() -> cache.getObject("key", () -> "other"));
+      Thread.sleep(100);
+      release.countDown();
+      ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+      assertTrue(leaderFailure.getCause() instanceof SQLException);
+      ExecutionException followerFailure = assertThrows(ExecutionException.class, () -> follower.get(10, TimeUnit.SECONDS));
+      assertTrue(followerFailure.getCause() instanceof CacheException);
+      assertTrue(followerFailure.getCause().getCause() instanceof SQLException);
+      assertNull(cache.getObject("key"));
+      assertEquals("retry", cache.getObject("key", () -> "retry"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldGiveWaitersCopiesOfTheLoadedValue() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    cache.setCopyValues(true);
+    ArrayList<String> loaded = new ArrayList<>();
+    loaded.add("value");
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Object> leader = executor.submit(() -> cache.getObject("key", () -> {
+        loading.countDown();
+        release.await();
+        return loaded;
+      }));
+      loading.await();
+      Future<Object> follower = executor.submit(() -> cache.getObject("key", () -> "other"));
+      Thread.sleep(100);
+      release.countDown();
+      assertSame(loaded, leader.get(10, TimeUnit.SECONDS));
+      Object copy = follower.get(10, TimeUnit.SECONDS);
+      assertEquals(loaded, copy);
+      assertNotSame(loaded, copy);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldPublishLoadedValueOnCommitOnly() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    TransactionalCache loading = new TransactionalCache(cache);
+    TransactionalCache other = new TransactionalCache(cache);
+    assertEquals("value", loading.getObject("key", () -> "value"));
+    assertNull(other.getObject("key"));
+    loading.commit();
+    assertEquals("value", other.getObject("key"));
+  }
+
+  @Test
+  void shouldNotWaitForNestedLoadOfTheSameKey() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    assertEquals("outer", cache.getObject("key", () -> {
+      assertEquals("inner", cache.getObject("key", () -> "inner"));
+      return "outer";
+    }));
+  }
+
+  @Test
+  void shouldNotLoadOnHit() throws Exception {
+    SingleFlightCache cache = new SingleFlightCache(new PerpetualCache("default"));
+    cache.putObject("key", "value");
+    assertEquals("value", cache.getObject("key", () -> {
+      throw new IllegalStateException("should not load");
+    }));
+  }
+
+}
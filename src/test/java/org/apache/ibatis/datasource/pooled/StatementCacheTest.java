@@ -0,0 +1,179 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+import org.apache.ibatis.BaseDataTest;
+import org.hsqldb.jdbc.JDBCPreparedStatement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StatementCacheTest {
+
+  private static final String SQL = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_USERS";
+  private static final String OTHER_SQL = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_TABLES";
+
+  private PooledDataSource ds;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    ds = BaseDataTest.createPooledDataSource(BaseDataTest.JPETSTORE_PROPERTIES);
+    ds.setPoolMaximumActiveConnections(1);
+    ds.setPoolMaximumIdleConnections(1);
+    ds.setPoolStatementCacheSize(1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ds.forceCloseAll();
+  }
+
+  @Test
+  void shouldReuseStatementAcrossCheckouts() throws Exception {
+    JDBCPreparedStatement first;
+    try (Connection conn = ds.getConnection(); PreparedStatement ps = conn.prepareStatement(SQL)) {
+      first = ps.unwrap(JDBCPreparedStatement.class);
+      assertSame(conn, ps.getConnection());
+    }
+    try (Connection conn = ds.getConnection(); PreparedStatement ps = conn.prepareStatement(SQL)) {
+      assertSame(first, ps.unwrap(JDBCPreparedStatement.class));
+      try (ResultSet rs = ps.executeQuery()) {
+        assertTrue(rs.next());
+      }
+    }
+    assertFalse(first.isClosed());
+  }
+
+  @Test
+  void shouldNotHandOutStatementInUse() throws Exception {
+    try (Connection conn = ds.getConnection();
+        PreparedStatement ps1 = conn.prepareStatement(SQL);
+        PreparedStatement ps2 = conn.prepareStatement(SQL)) {
+      assertNotSame(ps1.unwrap(JDBCPreparedStatement.class), ps2.unwrap(JDBCPreparedStatement.class));
+    }
+  }
+
+  @Test
+  void shouldCloseLeastRecentlyUsedStatement() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement ps = conn.prepareStatement(SQL);
+      JDBCPreparedStatement evicted = ps.unwrap(JDBCPreparedStatement.class);
+      ps.close();
+      assertTrue(ps.isClosed());
+      assertFalse(evicted.isClosed());
+      conn.prepareStatement(OTHER_SQL).close();
+      assertTrue(evicted.isClosed());
+    }
+  }
+
+  @Test
+  void shouldTellStatementsPreparedDifferentlyApart() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement ps = conn.prepareStatement(SQL, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+      JDBCPreparedStatement scrollable = ps.unwrap(JDBCPreparedStatement.class);
+      ps.close();
+      try (PreparedStatement other = conn.prepareStatement(SQL)) {
+        assertNotSame(scrollable, other.unwrap(JDBCPreparedStatement.class));
+      }
+    }
+  }
+
+  @Test
+  void shouldRestoreChangedPropertiesBeforeReuse() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement ps = conn.prepareStatement(SQL);
+      ps.setQueryTimeout(10);
+      ps.setMaxRows(5);
+      ps.close();
+      try (PreparedStatement reused = conn.prepareStatement(SQL)) {
+        assertEquals(0, reused.getQueryTimeout());
+        assertEquals(0, reused.getMaxRows());
+      }
+    }
+  }
+
+  @Test
+  void shouldCloseOpenResultSetBeforeReuse() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement ps = conn.prepareStatement(SQL);
+      JDBCPreparedStatement real = ps.unwrap(JDBCPreparedStatement.class);
+      ResultSet rs = ps.executeQuery();
+      ps.close();
+      assertTrue(rs.isClosed());
+      try (PreparedStatement reused = conn.prepareStatement(SQL)) {
+        assertSame(real, reused.unwrap(JDBCPreparedStatement.class));
+        assertNull(reused.getResultSet());
+      }
+    }
+  }
+
+  @Test
+  void shouldRestorePoolableAndLargeMaxRowsBeforeReuse() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement ps = conn.prepareStatement(SQL);
+      boolean poolable = ps.isPoolable();
+      ps.setPoolable(!poolable);
+      ps.setMaxRows(5);
+      ps.setLargeMaxRows(7);
+      ps.close();
+      try (PreparedStatement reused = conn.prepareStatement(SQL)) {
+        assertEquals(poolable, reused.isPoolable());
+        assertEquals(0, reused.getMaxRows());
+      }
+    }
+  }
+
+  @Test
+  void shouldNotCacheStatementWhosePropertiesCannotBeRestored() throws Exception {
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement ps = conn.prepareStatement(SQL);
+      JDBCPreparedStatement real = ps.unwrap(JDBCPreparedStatement.class);
+      ps.setEscapeProcessing(false);
+      ps.close();
+      assertTrue(real.isClosed());
+    }
+  }
+
+  @Test
+  void shouldPrepareWarmupStatementsWhenConnectionIsOpened() throws Exception {
+    ds.setPoolWarmupStatements(Arrays.asList("NOT A VALID STATEMENT", SQL));
+    try (Connection conn = ds.getConnection()) {
+      PooledConnection pooledConnection = (PooledConnection) Proxy.getInvocationHandler(conn);
+      StatementCache.Key key = new StatementCache.Key("prepareStatement", new Object[] { SQL });
+      assertNotNull(pooledConnection.getStatementCache().take(key));
+    }
+  }
+
+  @Test
+  void shouldNotCacheStatementsWhenDisabled() throws Exception {
+    ds.setPoolStatementCacheSize(0);
+    try (Connection conn = ds.getConnection()) {
+      PreparedStatement ps = conn.prepareStatement(SQL);
+      assertFalse(Proxy.isProxyClass(ps.getClass()));
+      ps.close();
+      assertTrue(ps.isClosed());
+    }
+  }
+
+}
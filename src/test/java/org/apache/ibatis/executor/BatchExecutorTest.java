@@ -15,7 +15,19 @@
  */
 package org.apache.ibatis.executor;
 
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.jupiter.api.Test;
 
 class BatchExecutorTest extends BaseExecutorTest {
@@ -24,6 +36,110 @@ class BatchExecutorTest extends BaseExecutorTest {
   void dummy() {
   }
 
+  @Test
+  void shouldOpenNewBatchWhenStatementChanges() throws Exception {
+    List<BatchResult> results = batchInterleavedInsertsAndUpdates();
+    assertEquals(4, results.size());
+    assertEquals("insertAuthor", results.get(0).getMappedStatement().getId());
+    assertEquals("updateAuthor", results.get(1).getMappedStatement().getId());
+  }
+
+  @Test
+  void shouldGroupRowsOfTheSameStatement() throws Exception {
+    config.setGroupBatchStatements(true);
+    List<BatchResult> results = batchInterleavedInsertsAndUpdates();
+    assertEquals(2, results.size());
+    assertEquals("insertAuthor", results.get(0).getMappedStatement().getId());
+    assertEquals(2, results.get(0).getParameterObjects().size());
+    assertArrayEquals(new int[] { 1, 1 }, results.get(0).getUpdateCounts());
+    assertEquals("updateAuthor", results.get(1).getMappedStatement().getId());
+    assertEquals(2, results.get(1).getParameterObjects().size());
+  }
+
+  @Test
+  void shouldFlushWhenBatchSizeIsReached() throws Exception {
+    config.setDefaultBatchSize(2);
+    List<BatchResult> handled = new ArrayList<>();
+    DataSource ds = createBlogDataSource();
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      executor.setBatchResultHandler(handled::add);
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int id = 95; id < 98; id++) {
+        executor.update(insertStatement, new Author(id, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      }
+      assertEquals(1, handled.size());
+      assertEquals(2, handled.get(0).getParameterObjects().size());
+      assertTrue(executor.flushStatements().isEmpty());
+      assertEquals(2, handled.size());
+      assertEquals(1, handled.get(1).getParameterObjects().size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldReturnAutoFlushedResultsOnFlush() throws Exception {
+    config.setDefaultBatchByteSize(1);
+    DataSource ds = createBlogDataSource();
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int id = 95; id < 98; id++) {
+        executor.update(insertStatement, new Author(id, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(3, results.size());
+      assertArrayEquals(new int[] { 1 }, results.get(2).getUpdateCounts());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldRewriteInsertsIntoMultiRowInserts() throws Exception {
+    config.setMultiRowInsertSize(2);
+    DataSource ds = createBlogDataSource();
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      for (int id = 95; id < 98; id++) {
+        executor.update(insertStatement, new Author(id, "someone" + id, "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(0).getUpdateCounts());
+      for (int id = 95; id < 98; id++) {
+        List<Author> authors = executor.query(selectStatement, id, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        assertEquals("someone" + id, authors.get(0).getUsername());
+      }
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  private List<BatchResult> batchInterleavedInsertsAndUpdates() throws Exception {
+    DataSource ds = createBlogDataSource();
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config);
+      Author existing = new Author(101, "jim", "********", "jim@ibatis.apache.org", "", Section.NEWS);
+      executor.update(insertStatement, new Author(97, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      executor.update(updateStatement, existing);
+      executor.update(insertStatement, new Author(98, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      executor.update(updateStatement, existing);
+      return executor.flushStatements();
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
   @Override
   protected Executor createExecutor(Transaction transaction) {
     return new BatchExecutor(config, transaction);
@@ -0,0 +1,51 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertTest {
+
+  @Test
+  void shouldRepeatTheValuesRow() {
+    MultiRowInsert insert = MultiRowInsert.of("INSERT INTO author (id, name) VALUES (?, lower(?))");
+    assertNotNull(insert);
+    assertEquals("INSERT INTO author (id, name) VALUES (?, lower(?))", insert.getSql(1));
+    assertEquals("INSERT INTO author (id, name) VALUES (?, lower(?)), (?, lower(?)), (?, lower(?))", insert.getSql(3));
+  }
+
+  @Test
+  void shouldIgnoreKeywordsInLiterals() {
+    MultiRowInsert insert = MultiRowInsert.of("insert into t (a, \"values\") values (?, 'a) values (')");
+    assertNotNull(insert);
+    assertEquals("insert into t (a, \"values\") values (?, 'a) values ('), (?, 'a) values (')", insert.getSql(2));
+  }
+
+  @Test
+  void shouldNotRewriteOtherStatements() {
+    assertNull(MultiRowInsert.of("insert into t (a) select a from u where b = ?"));
+    assertNull(MultiRowInsert.of("insert into t (a) values (?), (?)"));
+    assertNull(MultiRowInsert.of("insert into t (a) values (?) on conflict do nothing"));
+    assertNull(MultiRowInsert.of("insert into t (a, b) values (?, (select b from u where c = ?)) returning id"));
+    assertNull(MultiRowInsert.of("insert into t (a) values (?) -- comment"));
+    assertNull(MultiRowInsert.of("insert into t (a) values ('unterminated)"));
+    assertNull(MultiRowInsert.of("insert into t (a) values"));
+    assertNull(MultiRowInsert.of("insert into t (a, b) values (?, 'it\\'s) values (?')"));
+  }
+
+}
@@ -16,8 +16,12 @@
 package org.apache.ibatis.executor.resultset;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.Connection;
@@ -101,6 +105,91 @@ class DefaultResultSetHandlerTest {
     assertEquals(100, ((HashMap) results.get(0)).get("cOlUmN1"));
   }
 
+  @Test
+  void shouldReadColumnsByIndexWithThePlanOfTheStatement() throws Exception {
+    final MappedStatement ms = getMappedStatement();
+    final RowBounds rowBounds = new RowBounds(0, 100);
+
+    when(stmt.getResultSet()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(rs.next()).thenReturn(true, false, true, false);
+    when(rs.getInt(1)).thenReturn(100, 200);
+    when(rsmd.getColumnCount()).thenReturn(1);
+    when(rsmd.getColumnLabel(1)).thenReturn("CoLuMn1");
+    when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER);
+    when(rsmd.getColumnClassName(1)).thenReturn(Integer.class.getCanonicalName());
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(false); // for simplicity.
+
+    final List<Object> first = new DefaultResultSetHandler(null, ms, null, null, null, rowBounds).handleResultSets(stmt);
+    final RowMappingPlan.Key key = new RowMappingPlan.Key(ms.getResultMaps().get(0), null, true, HashMap.class,
+        new ResultSetWrapper(rs, ms.getConfiguration()));
+    final RowMappingPlan plan = ms.getRowMappingPlan(key);
+    assertNotNull(plan);
+
+    final List<Object> second = new DefaultResultSetHandler(null, ms, null, null, null, rowBounds).handleResultSets(stmt);
+    assertSame(plan, ms.getRowMappingPlan(key));
+    assertEquals(100, ((HashMap) first.get(0)).get("cOlUmN1"));
+    assertEquals(200, ((HashMap) second.get(0)).get("cOlUmN1"));
+  }
+
+  @Test
+  void shouldReadResultSetMetadataOncePerSql() throws Exception {
+    final MappedStatement ms = getMappedStatement();
+    final BoundSql boundSql = new BoundSql(ms.getConfiguration(), "select column1 from table", Collections.emptyList(),
+        null);
+    final RowBounds rowBounds = new RowBounds(0, 100);
+
+    when(stmt.getResultSet()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(rs.next()).thenReturn(true, false, true, false);
+    when(rs.getInt(1)).thenReturn(100, 200);
+    when(rsmd.getColumnCount()).thenReturn(1);
+    when(rsmd.getColumnLabel(1)).thenReturn("CoLuMn1");
+    when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER);
+    when(rsmd.getColumnClassName(1)).thenReturn(Integer.class.getCanonicalName());
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(false); // for simplicity.
+
+    final List<Object> first = new DefaultResultSetHandler(null, ms, null, null, boundSql, rowBounds).handleResultSets(stmt);
+    final List<Object> second = new DefaultResultSetHandler(null, ms, null, null, boundSql, rowBounds).handleResultSets(stmt);
+    assertEquals(100, ((HashMap) first.get(0)).get("cOlUmN1"));
+    assertEquals(200, ((HashMap) second.get(0)).get("cOlUmN1"));
+    assertNotNull(ms.getResultSetColumns(boundSql.getSql(), 0));
+    verify(rsmd, times(2)).getColumnLabel(1);
+    verify(rsmd, times(1)).getColumnClassName(1);
+  }
+
+  @Test
+  void shouldReadResultSetMetadataAgainWhenColumnsChange() throws Exception {
+    final MappedStatement ms = getMappedStatement();
+    final BoundSql boundSql = new BoundSql(ms.getConfiguration(), "select * from table", Collections.emptyList(),
+        null);
+    final RowBounds rowBounds = new RowBounds(0, 100);
+
+    when(stmt.getResultSet()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(rs.next()).thenReturn(true, false, true, false);
+    when(rs.getInt(1)).thenReturn(100);
+    when(rsmd.getColumnCount()).thenReturn(1);
+    when(rsmd.getColumnLabel(1)).thenReturn("column1", "column2");
+    when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER, Types.VARCHAR);
+    when(rsmd.getColumnClassName(1)).thenReturn(Integer.class.getCanonicalName(), String.class.getCanonicalName());
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(false); // for simplicity.
+
+    final List<Object> first = new DefaultResultSetHandler(null, ms, null, null, boundSql, rowBounds).handleResultSets(stmt);
+    new DefaultResultSetHandler(null, ms, null, null, boundSql, rowBounds).handleResultSets(stmt);
+    assertEquals(100, ((HashMap) first.get(0)).get("cOlUmN1"));
+    assertEquals(Collections.singletonList("column2"), ms.getResultSetColumns(boundSql.getSql(), 0).getColumnNames());
+  }
+
   @Test
   void shouldThrowExceptionWithColumnName() throws Exception {
     final MappedStatement ms = getMappedStatement();
@@ -0,0 +1,92 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.junit.jupiter.api.Test;
+
+class RowKeyTest {
+
+  private final RowKey.Columns idColumns = new RowKey.Columns(
+      Collections.singletonList(new RowKey.Column("id", 1, new IntegerTypeHandler(), true)), false);
+  private final RowKey.Columns nameColumns = new RowKey.Columns(
+      Arrays.asList(new RowKey.Column("id", 1, new IntegerTypeHandler(), true),
+          new RowKey.Column("name", 2, new StringTypeHandler(), false)), false);
+
+  @Test
+  void shouldEqualCopyOfTheProbe() throws SQLException {
+    RowKey probe = new RowKey();
+    RowKey key = probe.read(nameColumns, row(1L, "a")).copy();
+    assertEquals(key, probe.read(nameColumns, row(1L, "a")));
+    assertEquals(key.hashCode(), probe.hashCode());
+    assertNotEquals(key, probe.read(nameColumns, row(1L, "b")));
+    assertNotEquals(key, probe.read(nameColumns, row(2L, "a")));
+  }
+
+  @Test
+  void shouldTellNullFromZero() throws SQLException {
+    RowKey probe = new RowKey();
+    RowKey key = probe.read(nameColumns, row(0L, "a")).copy();
+    assertNotEquals(key, probe.read(nameColumns, row(null, "a")));
+  }
+
+  @Test
+  void shouldReturnNullKeyWithoutValues() throws SQLException {
+    assertSame(RowKey.NULL, new RowKey().read(idColumns, row(null, null)));
+    assertSame(RowKey.NULL, RowKey.NULL.copy());
+  }
+
+  @Test
+  void shouldCompareParentsByIdentity() throws SQLException {
+    RowKey probe = new RowKey();
+    Object parent = new Object();
+    RowKey key = probe.read(idColumns, row(1L, null)).withParent(parent).copy();
+    assertEquals(key, probe.read(idColumns, row(1L, null)).withParent(parent));
+    assertNotEquals(key, probe.read(idColumns, row(1L, null)).withParent(new Object()));
+    assertNotEquals(key, probe.read(idColumns, row(1L, null)));
+  }
+
+  @Test
+  void shouldNotEqualKeyOfOtherColumns() throws SQLException {
+    RowKey.Columns otherColumns = new RowKey.Columns(
+        Collections.singletonList(new RowKey.Column("id", 1, new IntegerTypeHandler(), true)), false);
+    RowKey probe = new RowKey();
+    RowKey key = probe.read(idColumns, row(1L, null)).copy();
+    assertNotEquals(key, probe.read(otherColumns, row(1L, null)));
+  }
+
+  private static ResultSet row(Long id, String name) throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getLong(1)).thenReturn(id == null ? 0L : id);
+    when(rs.wasNull()).thenReturn(id == null);
+    when(rs.getString(2)).thenReturn(name);
+    when(rs.getString("name")).thenReturn(name);
+    return rs;
+  }
+
+}
@@ -21,6 +21,12 @@ import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.datasource.pooled.PooledDataSource;
@@ -70,6 +76,190 @@ class PooledDataSourceTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldProperlyMaintainPoolOf3ActiveAnd2IdleConnectionsInLockFreeMode() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolLockFreeCheckout(true);
+      runScript(ds, JPETSTORE_DDL);
+      ds.setDefaultAutoCommit(false);
+      ds.setPoolMaximumActiveConnections(3);
+      ds.setPoolMaximumIdleConnections(2);
+      ds.setPoolPingConnectionsNotUsedFor(1);
+      ds.setPoolPingEnabled(true);
+      ds.setPoolPingQuery("SELECT * FROM PRODUCT");
+      List<Connection> connections = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      assertEquals(3, ds.getPoolState().getActiveConnectionCount());
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(4, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+      assertEquals(0, ds.getPoolState().getHadToWaitCount());
+      assertNotNull(ds.getPoolState().toString());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldReuseConnectionLastReturnedByTheSameThreadInLockFreeMode() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolLockFreeCheckout(true);
+      Connection first = ds.getConnection();
+      Connection second = ds.getConnection();
+      Connection realSecond = PooledDataSource.unwrapConnection(second);
+      first.close();
+      second.close();
+      Connection again = ds.getConnection();
+      assertSame(realSecond, PooledDataSource.unwrapConnection(again));
+      again.close();
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldHandOverConnectionReusedByAnotherThreadInLockFreeMode() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ds.setPoolLockFreeCheckout(true);
+      Connection realConnection = null;
+      for (int i = 0; i < 100; i++) {
+        Connection conn = ds.getConnection();
+        realConnection = PooledDataSource.unwrapConnection(conn);
+        conn.close();
+      }
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      Connection other = executor.submit(() -> PooledDataSource.unwrapConnection(ds.getConnection())).get();
+      assertSame(realConnection, other);
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      executor.shutdown();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldNotExceedMaximumActiveConnectionsInLockFreeMode() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ds.setPoolLockFreeCheckout(true);
+    ds.setPoolMaximumActiveConnections(4);
+    ds.setPoolMaximumIdleConnections(4);
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          int maxActive = 0;
+          for (int j = 0; j < 50; j++) {
+            try (Connection c = ds.getConnection()) {
+              maxActive = Math.max(maxActive, ds.getPoolState().getActiveConnectionCount());
+              c.getAutoCommit();
+            }
+          }
+          return maxActive;
+        }));
+      }
+      start.countDown();
+      for (Future<Integer> future : futures) {
+        assertTrue(future.get(30, TimeUnit.SECONDS) <= 4);
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertTrue(ds.getPoolState().getIdleConnectionCount() <= 4);
+      assertEquals(16 * 50, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldClaimOverdueConnectionInLockFreeMode() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolLockFreeCheckout(true);
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolMaximumCheckoutTime(10);
+      ds.setPoolTimeToWait(20);
+      Connection leaked = ds.getConnection();
+      Thread.sleep(50);
+      Connection c = ds.getConnection();
+      assertEquals(1, ds.getPoolState().getClaimedOverdueConnectionCount());
+      assertEquals(1, ds.getPoolState().getActiveConnectionCount());
+      leaked.close();
+      assertEquals(1, ds.getPoolState().getBadConnectionCount());
+      c.close();
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldKeepMinimumIdleConnectionsOpenInBackground() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMinimumIdleConnections(3);
+      ds.setPoolHousekeepingInterval(20);
+      waitFor(() -> ds.getPoolState().getIdleConnectionCount() == 3);
+      assertEquals(0, ds.getPoolState().getRequestCount());
+      Connection c = ds.getConnection();
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      c.close();
+    } finally {
+      ds.setPoolHousekeepingInterval(0);
+    }
+  }
+
+  @Test
+  void shouldRetireIdleConnectionsInBackground() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolLockFreeCheckout(true);
+      ds.setPoolMinimumIdleConnections(1);
+      ds.setPoolIdleTimeout(50);
+      ds.setPoolHousekeepingInterval(20);
+      List<Connection> connections = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+      waitFor(() -> ds.getPoolState().getIdleConnectionCount() == 1);
+    } finally {
+      ds.setPoolHousekeepingInterval(0);
+    }
+  }
+
+  @Test
+  void shouldNotReturnExpiredConnectionToPool() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumLifetime(10);
+      Connection c = ds.getConnection();
+      Thread.sleep(20);
+      c.close();
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
   @Test
   void shouldNotFailCallingToStringOverAnInvalidConnection() throws Exception {
     PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
@@ -85,4 +275,12 @@ class PooledDataSourceTest extends BaseDataTest {
     JDBCConnection realConnection = (JDBCConnection) PooledDataSource.unwrapConnection(c);
     c.close();
   }
+
+  private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline, "Timed out");
+      Thread.sleep(10);
+    }
+  }
 }
@@ -23,6 +23,11 @@ import java.lang.reflect.Field;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -43,6 +48,26 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void testConcurrentCacheIsNotSynchronized() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentCache.class).addDecorator(LruCache.class).size(512)
+        .readWrite(true).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    SerializedCache serializedCache = unwrap(cache);
+    ConcurrentCache concurrentCache = unwrap(serializedCache);
+    Assertions.assertThat(concurrentCache.getId()).isEqualTo("test");
+  }
+
+  @Test
+  void testOffHeapCacheIsNotSerializedTwice() {
+    Cache cache = new CacheBuilder("test").implementation(OffHeapCache.class).readWrite(true).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    OffHeapCache offHeapCache = unwrap(cache);
+    Assertions.assertThat(offHeapCache.getId()).isEqualTo("test");
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -0,0 +1,140 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaMethodInvoker;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.junit.jupiter.api.Test;
+
+class LambdaReflectorFactoryTest {
+
+  private final ReflectorFactory reflectorFactory = new LambdaReflectorFactory();
+
+  @Test
+  void shouldSetAndGetThroughGeneratedAccessors() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    assertTrue(reflector.getSetInvoker("id") instanceof LambdaMethodInvoker);
+    assertTrue(reflector.getGetInvoker("name") instanceof LambdaMethodInvoker);
+    Bean bean = new Bean();
+    reflector.getSetInvoker("id").invoke(bean, new Object[] { 5 });
+    reflector.getSetInvoker("name").invoke(bean, new Object[] { "five" });
+    reflector.getSetInvoker("secret").invoke(bean, new Object[] { "hidden" });
+    assertEquals(5, reflector.getGetInvoker("id").invoke(bean, null));
+    assertEquals("five", reflector.getGetInvoker("name").invoke(bean, null));
+    assertEquals("hidden", bean.secret);
+    assertEquals(int.class, reflector.getSetterType("id"));
+  }
+
+  @Test
+  void shouldSetInheritedAndFluentProperties() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(SubBean.class);
+    SubBean bean = new SubBean();
+    reflector.getSetInvoker("id").invoke(bean, new Object[] { 7 });
+    reflector.getSetInvoker("nickname").invoke(bean, new Object[] { "seven" });
+    assertEquals(7, bean.getId());
+    assertEquals("seven", bean.nickname);
+  }
+
+  @Test
+  void shouldWrapExceptionsOfGeneratedAccessors() {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Invoker invoker = reflector.getSetInvoker("failing");
+    InvocationTargetException e = assertThrows(InvocationTargetException.class,
+        () -> invoker.invoke(new Bean(), new Object[] { "x" }));
+    assertTrue(e.getCause() instanceof IllegalStateException);
+    // the setter was called by the generated accessor, not by reflection
+    assertTrue(Arrays.stream(e.getCause().getStackTrace())
+        .map(StackTraceElement::getClassName)
+        .filter(className -> !className.equals(Bean.class.getName()))
+        .findFirst().filter(LambdaMethodInvoker.class.getName()::equals).isPresent());
+  }
+
+  @Test
+  void shouldRejectNullForPrimitiveProperty() {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Invoker invoker = reflector.getSetInvoker("id");
+    InvocationTargetException e = assertThrows(InvocationTargetException.class,
+        () -> invoker.invoke(new Bean(), new Object[] { null }));
+    assertTrue(e.getCause() instanceof NullPointerException);
+  }
+
+  @Test
+  void shouldSetNestedPropertiesThroughMetaObject() {
+    SubBean bean = new SubBean();
+    MetaObject metaObject = MetaObject.forObject(bean, new DefaultObjectFactory(), new DefaultObjectWrapperFactory(),
+        reflectorFactory);
+    metaObject.setValue("child.name", "child");
+    metaObject.setValue("child.id", 3);
+    assertEquals("child", bean.getChild().getName());
+    assertEquals(3, metaObject.getValue("child.id"));
+  }
+
+  static class Bean {
+    private int id;
+    private String name;
+    private String secret;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    private void setSecret(String secret) {
+      this.secret = secret;
+    }
+
+    public void setFailing(String failing) {
+      throw new IllegalStateException(failing);
+    }
+  }
+
+  static class SubBean extends Bean {
+    private String nickname;
+    private Bean child;
+
+    public SubBean setNickname(String nickname) {
+      this.nickname = nickname;
+      return this;
+    }
+
+    public Bean getChild() {
+      return child;
+    }
+
+    public void setChild(Bean child) {
+      this.child = child;
+    }
+  }
+
+}
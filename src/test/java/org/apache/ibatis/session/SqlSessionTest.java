@@ -28,6 +28,11 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javassist.util.proxy.Proxy;
 
@@ -159,6 +164,97 @@ class SqlSessionTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldRunSubmittedQueriesConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (SqlSession session = sqlMapper.openSession()) {
+      CompletableFuture<List<Author>> authors = session.submitQuery(
+          s -> s.selectList("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthors"), executor);
+      CompletableFuture<Integer> count = sqlMapper.submitQuery(
+          s -> s.selectOne("org.apache.ibatis.domain.blog.mappers.BlogMapper.selectCountOfPosts"), executor);
+      assertEquals(2, authors.get().size());
+      assertEquals(5, count.get().intValue());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldRunSubmittedQueryOnSessionWithUncommittedChanges() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (SqlSession session = sqlMapper.openSession()) {
+      Author original = session.selectOne("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor", 101);
+      original.setEmail("new@email.com");
+      session.update("org.apache.ibatis.domain.blog.mappers.AuthorMapper.updateAuthor", original);
+      CompletableFuture<Author> updated = session.submitQuery(
+          s -> s.selectOne("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor", 101), executor);
+      assertTrue(updated.isDone());
+      assertEquals("new@email.com", updated.get().getEmail());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldRunSubmittedQueryInSessionOfOriginatingFactory() throws Exception {
+    AtomicInteger openedSessions = new AtomicInteger();
+    SqlSessionFactory factory = new DefaultSqlSessionFactory(sqlMapper.getConfiguration()) {
+      @Override
+      public SqlSession openSession() {
+        openedSessions.incrementAndGet();
+        return super.openSession();
+      }
+    };
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (SqlSession session = factory.openSession()) {
+      CompletableFuture<Integer> count = session.submitQuery(
+          s -> s.selectOne("org.apache.ibatis.domain.blog.mappers.BlogMapper.selectCountOfPosts"), executor);
+      assertEquals(5, count.get().intValue());
+      assertEquals(2, openedSessions.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldCompleteSubmittedQueryOnSessionWithUncommittedChangesExceptionally() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (SqlSession session = sqlMapper.openSession()) {
+      Author original = session.selectOne("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor", 101);
+      session.update("org.apache.ibatis.domain.blog.mappers.AuthorMapper.updateAuthor", original);
+      CompletableFuture<Author> author = session.submitQuery(s -> {
+        throw new AssertionError("failed");
+      }, executor);
+      ExecutionException e = Assertions.assertThrows(ExecutionException.class, author::get);
+      assertTrue(e.getCause() instanceof AssertionError);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldRunSubmittedQueryOnSessionThatCannotOpenAnother() throws Exception {
+    SqlSession session = Mockito.mock(SqlSession.class);
+    Mockito.when(session.submitQuery(Mockito.any(), Mockito.any())).thenCallRealMethod();
+    Mockito.when(session.selectOne("count")).thenReturn(5);
+    CompletableFuture<Integer> count = session.submitQuery(s -> s.selectOne("count"), Runnable::run);
+    assertTrue(count.isDone());
+    assertEquals(5, count.get().intValue());
+  }
+
+  @Test
+  void shouldCompleteSubmittedQueryExceptionally() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CompletableFuture<Author> author = sqlMapper.submitQuery(
+          s -> s.selectOne("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthors"), executor);
+      ExecutionException e = Assertions.assertThrows(ExecutionException.class, author::get);
+      assertTrue(e.getCause() instanceof TooManyResultsException);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   void shouldFailWithTooManyResultsException() {
     try (SqlSession session = sqlMapper.openSession(TransactionIsolationLevel.SERIALIZABLE)) {
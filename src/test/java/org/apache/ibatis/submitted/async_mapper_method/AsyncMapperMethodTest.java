@@ -0,0 +1,107 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_mapper_method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AsyncMapperMethodTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/async_mapper_method/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_mapper_method/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRunSelectsOnTheAsyncExecutor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<List<User>> users = mapper.getUsers();
+      CompletableFuture<List<User>> usersUsingXml = mapper.getUsersUsingXml();
+      CompletableFuture<User> user = mapper.getUser(2);
+      assertEquals(2, users.get().size());
+      assertEquals("User1", users.get().get(0).getName());
+      assertEquals(2, usersUsingXml.get().size());
+      assertEquals("User2", user.get().getName());
+      assertEquals("User1", mapper.getOptionalUser(1).get().map(User::getName).orElse(null));
+      assertFalse(mapper.getOptionalUser(3).get().isPresent());
+      Map<Integer, User> usersById = mapper.getUsersById().get();
+      assertEquals("User2", usersById.get(2).getName());
+    }
+  }
+
+  @Test
+  void shouldUseTheConfiguredExecutor() throws Exception {
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(runnable -> {
+      Thread worker = new Thread(runnable);
+      thread.set(worker);
+      worker.start();
+    });
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(2, sqlSession.getMapper(Mapper.class).getUsers().get().size());
+      assertNotNull(thread.get());
+    } finally {
+      sqlSessionFactory.getConfiguration().setAsyncExecutor(null);
+    }
+  }
+
+  @Test
+  void shouldSeeUncommittedChangesOfTheSession() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      user.setId(3);
+      user.setName("User3");
+      mapper.insertUser(user);
+      CompletableFuture<List<User>> users = mapper.getUsers();
+      assertTrue(users.isDone());
+      assertEquals(3, users.get().size());
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  void shouldNotRunInsertsAsynchronously() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      BindingException e = assertThrows(BindingException.class, () -> mapper.insertUserAsync(new User()));
+      assertTrue(e.getMessage().contains("cannot return a CompletableFuture"));
+    }
+  }
+
+}
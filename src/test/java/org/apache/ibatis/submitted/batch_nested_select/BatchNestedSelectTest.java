@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_nested_select;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchNestedSelectTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/batch_nested_select/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_nested_select/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetCounter() {
+    StatementCounter.reset();
+  }
+
+  @Test
+  void shouldRunNestedSelectsOncePerBatch() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Order> orders = sqlSession.getMapper(Mapper.class).getOrders();
+      assertOrders(orders);
+      // the orders, the customers of all the orders, and the lines of two batches of two orders
+      assertEquals(4, StatementCounter.getCount());
+    }
+  }
+
+  @Test
+  void shouldRunNestedSelectsPerRowWithCursor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+        Cursor<Order> cursor = sqlSession.getMapper(Mapper.class).getOrdersCursor()) {
+      List<Order> orders = new ArrayList<>();
+      cursor.forEach(orders::add);
+      assertOrders(orders);
+    }
+  }
+
+  @Test
+  void shouldGetTheSameResultsAsPerRowNestedSelects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertOrders(sqlSession.getMapper(Mapper.class).getOrdersPerRow());
+      assertEquals(8, StatementCounter.getCount());
+    }
+  }
+
+  @Test
+  void shouldLazyLoadThePropertyOfAllTheOrdersAtOnce() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Order> orders = sqlSession.getMapper(Mapper.class).getOrdersLazy();
+      assertEquals(1, StatementCounter.getCount());
+      orders.get(1).setLines(new ArrayList<>());
+      assertEquals(2, orders.get(0).getLines().size());
+      assertEquals(2, StatementCounter.getCount());
+      // set before the other orders were loaded, so it is kept
+      assertTrue(orders.get(1).getLines().isEmpty());
+      assertTrue(orders.get(2).getLines().isEmpty());
+      assertTrue(orders.get(3).getLines().isEmpty());
+      assertEquals(2, StatementCounter.getCount());
+    }
+  }
+
+  @Test
+  void shouldLazyLoadAfterTheSessionIsClosed() {
+    List<Order> orders;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      orders = sqlSession.getMapper(Mapper.class).getOrdersLazy();
+    }
+    assertEquals(1, orders.get(1).getLines().size());
+    assertEquals("Paper", orders.get(0).getLines().get(1).getItem());
+    assertEquals(2, StatementCounter.getCount());
+  }
+
+  private void assertOrders(List<Order> orders) {
+    assertEquals(4, orders.size());
+    assertEquals("John", orders.get(0).getCustomer().getName());
+    assertSame(orders.get(0).getCustomer(), orders.get(1).getCustomer());
+    assertEquals("Jane", orders.get(2).getCustomer().getName());
+    assertNull(orders.get(3).getCustomer());
+    assertEquals(2, orders.get(0).getLines().size());
+    assertEquals("Paper", orders.get(0).getLines().get(1).getItem());
+    assertEquals(1, orders.get(1).getLines().size());
+    assertTrue(orders.get(2).getLines().isEmpty());
+    assertTrue(orders.get(3).getLines().isEmpty());
+  }
+
+}
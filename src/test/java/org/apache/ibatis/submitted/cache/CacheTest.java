@@ -289,6 +289,36 @@ class CacheTest {
     Assertions.assertTrue(customCache.isBooleanValue());
   }
 
+  @Test
+  void shouldInvalidateOnlyEntriesWithTheUpdatedTag() {
+    sqlSessionFactory.getConfiguration().addMapper(TaggedPersonMapper.class);
+    Cache cache = sqlSessionFactory.getConfiguration().getCache(TaggedPersonMapper.class.getName());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      TaggedPersonMapper mapper = sqlSession.getMapper(TaggedPersonMapper.class);
+      mapper.find(1);
+      mapper.find(2);
+      mapper.findAll();
+    }
+    Assertions.assertEquals(3, cache.getSize());
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      TaggedPersonMapper mapper = sqlSession.getMapper(TaggedPersonMapper.class);
+      Person person = mapper.find(1);
+      person.setLastname("Updated");
+      mapper.update(person);
+      Assertions.assertEquals("Updated", mapper.find(1).getLastname());
+      sqlSession.commit();
+    }
+    // the entry of person 2 is kept, the entries of person 1 and of all persons are invalidated
+    Assertions.assertEquals(2, cache.getSize());
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      TaggedPersonMapper mapper = sqlSession.getMapper(TaggedPersonMapper.class);
+      Assertions.assertEquals("Updated", mapper.find(1).getLastname());
+      Assertions.assertTrue(mapper.findAll().stream().anyMatch(p -> "Updated".equals(p.getLastname())));
+    }
+  }
+
   @Test
   void shouldErrorUnsupportedProperties() {
     when(() -> sqlSessionFactory.getConfiguration().addMapper(CustomCacheUnsupportedPropertyMapper.class));
@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import org.apache.ibatis.BaseDataTest;
@@ -175,6 +176,24 @@ class Jdbc3KeyGeneratorTest {
     }
   }
 
+  @Test
+  void shouldAssignKeysToListOfDifferentClasses() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      try {
+        CountryMapper mapper = sqlSession.getMapper(CountryMapper.class);
+        List<Country> countries = new ArrayList<>();
+        countries.add(new Country("China", "CN"));
+        countries.add(new Country("United Kiongdom", "GB") {
+        });
+        countries.add(new Country("United States of America", "US"));
+        mapper.insertList(countries);
+        assertEquals(3, countries.stream().map(Country::getId).filter(Objects::nonNull).distinct().count());
+      } finally {
+        sqlSession.rollback();
+      }
+    }
+  }
+
   @Test
   void shouldAssignKeysToNamedList() {
     try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
@@ -0,0 +1,145 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multirow_insert;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class BatchMultiRowInsertTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multirow_insert/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/multirow_insert/CreateDB.sql");
+  }
+
+  @Test
+  void shouldInsertRowsInChunksAndAssignTheirKeys() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        User user = new User();
+        user.setName("User" + i);
+        users.add(user);
+        mapper.insertUser(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(1, results.size());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, results.get(0).getUpdateCounts());
+
+      List<User> inserted = mapper.getUsers();
+      assertEquals(5, inserted.size());
+      for (int i = 0; i < 5; i++) {
+        assertEquals("User" + i, inserted.get(i).getName());
+        assertEquals(inserted.get(i).getId(), users.get(i).getId());
+      }
+      sqlSession.rollback();
+    }
+  }
+
+  @Test
+  void shouldBindRowsThroughParameterHandlerPlugins() throws Exception {
+    SqlSessionFactory factory;
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multirow_insert/mybatis-config.xml")) {
+      factory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    UpperCaseNamePlugin plugin = new UpperCaseNamePlugin();
+    factory.getConfiguration().addInterceptor(plugin);
+    try (SqlSession sqlSession = factory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 3; i++) {
+        User user = new User();
+        user.setName("User" + i);
+        mapper.insertUser(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(0).getUpdateCounts());
+      assertEquals(3, plugin.calls);
+
+      List<User> inserted = mapper.getUsers();
+      assertEquals(3, inserted.size());
+      for (int i = 0; i < 3; i++) {
+        assertEquals("USER" + i, inserted.get(i).getName());
+      }
+      sqlSession.rollback();
+    }
+  }
+
+  @Intercepts(@Signature(type = ParameterHandler.class, method = "setParameters", args = PreparedStatement.class))
+  static class UpperCaseNamePlugin implements Interceptor {
+
+    int calls;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      calls++;
+      ParameterHandler parameterHandler = (ParameterHandler) invocation.getTarget();
+      Object parameterObject = parameterHandler.getParameterObject();
+      if (parameterObject instanceof User) {
+        User user = (User) parameterObject;
+        user.setName(user.getName().toUpperCase());
+      }
+      return invocation.proceed();
+    }
+
+  }
+
+  @Test
+  void shouldInsertTheValuesEachRowHadWhenAdded() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      for (int i = 0; i < 3; i++) {
+        user.setName("User" + i);
+        mapper.insertUser(user);
+      }
+      sqlSession.flushStatements();
+
+      List<User> inserted = mapper.getUsers();
+      assertEquals(3, inserted.size());
+      for (int i = 0; i < 3; i++) {
+        assertEquals("User" + i, inserted.get(i).getName());
+      }
+      sqlSession.rollback();
+    }
+  }
+
+}
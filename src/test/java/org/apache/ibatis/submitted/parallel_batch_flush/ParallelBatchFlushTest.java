@@ -0,0 +1,150 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_batch_flush;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchExecutorException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelBatchFlushTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_batch_flush/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/parallel_batch_flush/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void deleteUsers() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.getMapper(Mapper.class).deleteUsers();
+    }
+  }
+
+  @Test
+  void shouldFlushBatchesOnSeveralConnectionsInOrder() {
+    long requests = getDataSource().getPoolState().getRequestCount();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 22; i++) {
+        mapper.insertUser(new User(i, "User" + i));
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(5, results.size());
+      for (int i = 0; i < results.size(); i++) {
+        List<Object> parameterObjects = results.get(i).getParameterObjects();
+        assertEquals(i * 5, ((User) parameterObjects.get(0)).getId());
+        assertEquals(parameterObjects.size(), results.get(i).getUpdateCounts().length);
+      }
+      assertEquals(22, mapper.countUsers());
+    }
+    assertEquals(3, getDataSource().getPoolState().getRequestCount() - requests);
+  }
+
+  @Test
+  void shouldSelectKeysOnceTheSessionConnectionIsFree() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 10; i++) {
+        mapper.insertUser(new User(i, "User" + i));
+      }
+      User user = new User(0, "Keyed");
+      mapper.insertUserWithSelectKey(user);
+      sqlSession.flushStatements();
+      assertTrue(user.getId() >= 1000);
+      assertEquals(11, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldNotFlushBatchesOnTheAsyncExecutor() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Executor asyncExecutor = configuration.getAsyncExecutor();
+    // an executor that never runs anything
+    configuration.setAsyncExecutor(runnable -> {
+    });
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 12; i++) {
+        mapper.insertUser(new User(i, "User" + i));
+      }
+      assertEquals(3, sqlSession.flushStatements().size());
+      assertEquals(12, mapper.countUsers());
+    } finally {
+      configuration.setAsyncExecutor(asyncExecutor);
+    }
+  }
+
+  @Test
+  void shouldReportTheFirstFailedBatch() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      PersistenceException pe = assertThrows(PersistenceException.class, () -> {
+        for (int i = 0; i < 15; i++) {
+          // the third batch inserts the first user again
+          mapper.insertUser(new User(i == 12 ? 0 : i, "User" + i));
+        }
+        sqlSession.flushStatements();
+      });
+      BatchExecutorException e = (BatchExecutorException) pe.getCause();
+      assertEquals(2, e.getSuccessfulBatchResults().size());
+      assertEquals("org.apache.ibatis.submitted.parallel_batch_flush.Mapper.insertUser", e.getFailingStatementId());
+    }
+  }
+
+  @Test
+  void shouldUseTheSessionConnectionOnlyInTransactions() {
+    long requests = getDataSource().getPoolState().getRequestCount();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 12; i++) {
+        mapper.insertUser(new User(i, "User" + i));
+      }
+      assertEquals(3, sqlSession.flushStatements().size());
+      assertEquals(12, mapper.countUsers());
+      sqlSession.rollback();
+      assertEquals(0, mapper.countUsers());
+    }
+    assertEquals(1, getDataSource().getPoolState().getRequestCount() - requests);
+  }
+
+  private PooledDataSource getDataSource() {
+    return (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+  }
+
+}
@@ -0,0 +1,60 @@
+--
+--    Copyright 2009-2022 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table comment if exists;
+drop table post if exists;
+drop table blog if exists;
+drop table author if exists;
+
+create table author (
+  id int primary key,
+  name varchar(20)
+);
+
+create table blog (
+  id int primary key,
+  title varchar(20),
+  author_id int
+);
+
+create table post (
+  id int primary key,
+  blog_id int,
+  subject varchar(20)
+);
+
+create table comment (
+  id int primary key,
+  post_id int,
+  text varchar(20)
+);
+
+insert into author values(1, 'author1');
+insert into author values(2, 'author2');
+
+insert into blog values(1, 'blog1', 1);
+insert into blog values(2, 'blog2', 2);
+insert into blog values(3, 'blog3', 1);
+
+insert into post values(1, 1, 'post1');
+insert into post values(2, 1, 'post2');
+insert into post values(3, 2, 'post3');
+
+insert into comment values(1, 1, 'comment1');
+insert into comment values(2, 1, 'comment2');
+insert into comment values(3, 3, 'comment3');
+insert into comment values(4, 3, 'comment4');
+insert into comment values(5, 3, 'comment5');
@@ -0,0 +1,100 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.streamed_nested_results;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class StreamedNestedResultsTest {
+
+  private static final List<String> EXPECTED_BLOGS = Arrays.asList(
+      "blog1 by author1 [post1 [comment1, comment2], post2 []]",
+      "blog2 by author2 [post3 [comment3, comment4, comment5]]",
+      "blog3 by author1 []");
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/streamed_nested_results/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/streamed_nested_results/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapNestedResultsAsWithoutStreaming() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.selectBlogs();
+      assertEquals(EXPECTED_BLOGS, describe(blogs));
+      assertEquals(describe(mapper.selectBlogsUnstreamed()), describe(blogs));
+    }
+  }
+
+  @Test
+  void shouldHandOutEachBlogOnceComplete() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<String> handled = new ArrayList<>();
+      mapper.selectBlogs(context -> handled.add(describe(context.getResultObject())));
+      assertEquals(EXPECTED_BLOGS, handled);
+    }
+  }
+
+  @Test
+  void shouldFetchCompleteBlogsFromCursor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<String> fetched = new ArrayList<>();
+      try (Cursor<Blog> cursor = mapper.selectBlogsWithCursor()) {
+        for (Blog blog : cursor) {
+          fetched.add(describe(blog));
+        }
+      }
+      assertEquals(EXPECTED_BLOGS, fetched);
+    }
+  }
+
+  private static List<String> describe(List<Blog> blogs) {
+    return blogs.stream().map(StreamedNestedResultsTest::describe).collect(Collectors.toList());
+  }
+
+  private static String describe(Blog blog) {
+    return blog.getTitle() + " by " + blog.getAuthor().getName() + " " + blog.getPosts().stream()
+        .map(post -> post.getSubject() + " "
+            + post.getComments().stream().map(Comment::getText).collect(Collectors.toList()))
+        .collect(Collectors.toList());
+  }
+
+}